@@ -0,0 +1,89 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트. 인메모리 H2 를 띄우고 members x teams 데이터를 만든다.
+ */
+public final class BenchmarkContext {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... args) {
+        return run(WebApplicationType.NONE, name, args);
+    }
+
+    /**
+     * 임의 포트로 내장 Tomcat 을 띄운다. 포트는 {@link #port(ConfigurableApplicationContext)}
+     */
+    public static ConfigurableApplicationContext startWeb(String name, String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0"));
+        arguments.addAll(List.of(args));
+        return run(WebApplicationType.SERVLET, name, arguments.toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType webApplicationType, String name, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.enabled=false"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(webApplicationType)
+                .run(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * team0..team{teams-1} 을 만들고 member 를 팀에 고르게 나눠 넣는다. 나이는 0..99 를 순환한다.
+     */
+    public static void generate(ConfigurableApplicationContext context, int members, int teams) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Long> teamIds = tx.execute(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        for (int from = 0; from < members; from += CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(members, from + CHUNK_SIZE);
+            tx.executeWithoutResult(status -> {
+                for (int i = start; i < end; i++) {
+                    Member member = new Member("member" + i, i % 100);
+                    member.setTeam(em.getReference(Team.class, teamIds.get(i % teams)));
+                    em.persist(member);
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 클라이언트 256 개로 /v1, /v3 를 호출했을 때의 처리량(RPS). platform 은 Tomcat 기본 스레드 풀(200), virtual 은 가상 스레드 + 커넥션 게이트이다.
+ * rejected 는 게이트에서 503 을 받은 요청 수이다. 처리량이 같아도 rejected 가 0 이 아니면 지속 가능한 RPS 가 아니다.
+ * <pre>./gradlew jmh -Pjmh.includes=MemberEndpointLoadBenchmark -Pjmh.jvm=/path/to/jdk21/bin/java</pre>
+ * Java 21 미만에서는 virtual 도 플랫폼 스레드로 동작한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(256)
+@Fork(1)
+public class MemberEndpointLoadBenchmark {
+
+    @Param({"platform", "virtual"})
+    String mode;
+
+    @Param({"100000"})
+    int members;
+
+    @Param({"100"})
+    int teams;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    HttpRequest v1;
+    HttpRequest v3;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.startWeb("load",
+                "--querydsl.execution.mode=" + mode,
+                "--spring.datasource.hikari.maximum-pool-size=10");
+        BenchmarkContext.generate(context, members, teams);
+
+        String base = "http://localhost:" + BenchmarkContext.port(context);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        v1 = HttpRequest.newBuilder(URI.create(base + "/v1/members?teamname=team7&ageGoe=30&ageLoe=40")).build();
+        v3 = HttpRequest.newBuilder(URI.create(base + "/v3/members?teamname=team7&page=3&size=20")).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            rejected = 0;
+            failed = 0;
+        }
+
+        void count(int status) {
+            if (status == 200) {
+                ok++;
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                failed++;
+            }
+        }
+    }
+
+    @Benchmark
+    public void searchByWhere(Responses responses) throws IOException, InterruptedException {
+        responses.count(client.send(v1, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    @Benchmark
+    public void searchPageComplex(Responses responses) throws IOException, InterruptedException {
+        responses.count(client.send(v3, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+}
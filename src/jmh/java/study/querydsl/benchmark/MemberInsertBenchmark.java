@@ -0,0 +1,146 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.id.enhanced.PooledOptimizer;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberJpaRepository.saveAll 로 rows 건을 넣는 데 걸리는 시간.
+ * batched=false 는 application.yml 의 batch_size, order_inserts/order_updates, pooled-lo 옵티마이저를
+ * 변경 전 값(Hibernate 기본값: batch 없음, 정렬 없음, pooled 옵티마이저)으로 덮어쓴다.
+ * 덮어쓴 값이 실제로 SessionFactory 에 적용되었는지 setUp 에서 확인한다.
+ * <pre>./gradlew jmh -Pjmh.includes=MemberInsertBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MemberInsertBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    @Param({"true", "false"})
+    boolean batched;
+
+    @Param({"100"})
+    int teams;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository repository;
+    EntityManager em;
+    TransactionTemplate tx;
+    JdbcTemplate jdbcTemplate;
+    long[] teamIds;
+
+    private static final String[] BASELINE = {
+            "--spring.jpa.properties.hibernate.jdbc.batch_size=0",
+            "--spring.jpa.properties.hibernate.order_inserts=false",
+            "--spring.jpa.properties.hibernate.order_updates=false",
+            "--spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=pooled"
+    };
+
+    @Setup
+    public void setUp() {
+        context = batched
+                ? BenchmarkContext.start("insert")
+                : BenchmarkContext.start("insert", BASELINE);
+        verifyConfiguration(context.getBean(EntityManagerFactory.class).unwrap(SessionFactoryImplementor.class));
+        BenchmarkContext.generate(context, 0, teams);
+        repository = context.getBean(MemberJpaRepository.class);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        teamIds = jdbcTemplate.queryForList("select team_id from team", Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void verifyConfiguration(SessionFactoryImplementor sessionFactory) {
+        SessionFactoryOptions options = sessionFactory.getSessionFactoryOptions();
+        Generator generator = sessionFactory.getMappingMetamodel().getEntityDescriptor(Member.class).getGenerator();
+        Class<?> optimizer = generator instanceof SequenceStyleGenerator sequence ? sequence.getOptimizer().getClass() : null;
+
+        boolean expected = batched
+                ? options.getJdbcBatchSize() > 1 && options.isOrderInsertsEnabled() && options.isOrderUpdatesEnabled()
+                        && optimizer == PooledLoOptimizer.class
+                : options.getJdbcBatchSize() <= 1 && !options.isOrderInsertsEnabled() && !options.isOrderUpdatesEnabled()
+                        && optimizer == PooledOptimizer.class;
+        if (!expected) {
+            throw new IllegalStateException("Unexpected insert settings for batched=" + batched
+                    + ": batch_size=" + options.getJdbcBatchSize()
+                    + ", order_inserts=" + options.isOrderInsertsEnabled()
+                    + ", order_updates=" + options.isOrderUpdatesEnabled()
+                    + ", optimizer=" + optimizer);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.execute("delete from member");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long saveAll() {
+        return tx.execute(status -> repository.saveAll(() -> new MemberIterator(rows)));
+    }
+
+    /**
+     * 1M 건을 한꺼번에 만들지 않도록 순회하면서 만든다. Team 은 컬렉션을 건드리지 않도록 참조만 건다.
+     */
+    private class MemberIterator implements Iterator<Member> {
+
+        private final int count;
+        private int next;
+
+        MemberIterator(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public Member next() {
+            Member member = new Member("member" + next, next % 100);
+            member.setTeam(em.getReference(Team.class, teamIds[next % teamIds.length]));
+            next++;
+            return member;
+        }
+    }
+}
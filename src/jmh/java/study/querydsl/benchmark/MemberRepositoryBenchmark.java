@@ -0,0 +1,95 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemberRepositoryImpl / MemberJpaRepository 검색 경로별 처리량. -prof gc 로 할당량도 함께 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark {
+
+    @Param({"10000", "100000"})
+    int members;
+
+    @Param({"10", "100"})
+    int teams;
+
+    @Param({"0", "50"})
+    int page;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberJpaRepository memberJpaRepository;
+    MemberSearchCond cond;
+    PageRequest pageRequest;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("repository");
+        BenchmarkContext.generate(context, members, teams);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+
+        cond = new MemberSearchCond();
+        cond.setTeamname("team1");
+        cond.setAgeGoe(20);
+        cond.setAgeLoe(40);
+        pageRequest = PageRequest.of(page, 20);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberRepository.search(cond);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(cond, pageRequest);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(cond, pageRequest);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByBuilder() {
+        return memberJpaRepository.searchByBuilder(cond);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchByWhere() {
+        return memberJpaRepository.searchByWhere(cond);
+    }
+}
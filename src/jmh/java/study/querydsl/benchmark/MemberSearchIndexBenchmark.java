@@ -0,0 +1,120 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v1/members (searchByWhere) 조건별 지연 시간. indexed=false 는 엔티티에 선언한 인덱스를 지운 상태(변경 전)이다.
+ * <pre>./gradlew jmh -Pjmh.includes=MemberSearchIndexBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSearchIndexBenchmark {
+
+    private static final List<String> INDEXES = List.of(
+            "idx_member_username", "idx_member_team_age", "idx_member_age", "idx_team_name");
+
+    @Param({"1000000"})
+    int members;
+
+    @Param({"1000"})
+    int teams;
+
+    @Param({"true", "false"})
+    boolean indexed;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository repository;
+    MemberSearchCond byUsername;
+    MemberSearchCond byTeamname;
+    MemberSearchCond byTeamnameAndAge;
+    MemberSearchCond byAge;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("index",
+                "--seed.enabled=true",
+                "--seed.members=" + members,
+                "--seed.teams=" + teams,
+                "--seed.partitions=4");
+        if (!indexed) {
+            dropIndexes(context.getBean(JdbcTemplate.class));
+        }
+        repository = context.getBean(MemberJpaRepository.class);
+
+        byUsername = new MemberSearchCond();
+        byUsername.setUsername("member" + members / 2);
+
+        byTeamname = new MemberSearchCond();
+        byTeamname.setTeamname("team7");
+
+        byTeamnameAndAge = new MemberSearchCond();
+        byTeamnameAndAge.setTeamname("team7");
+        byTeamnameAndAge.setAgeGoe(30);
+        byTeamnameAndAge.setAgeLoe(32);
+
+        byAge = new MemberSearchCond();
+        byAge.setAgeGoe(50);
+        byAge.setAgeLoe(50);
+    }
+
+    /**
+     * H2 는 외래 키에 쓸 수 있는 인덱스가 있으면 그것을 제약 조건에 사용하므로 외래 키를 지웠다가 다시 만든다.
+     * 다시 만들 때 H2 가 team_id 단일 인덱스를 새로 만들어 변경 전과 같은 상태가 된다.
+     */
+    private static void dropIndexes(JdbcTemplate jdbcTemplate) {
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "select constraint_name from information_schema.table_constraints"
+                        + " where table_name = 'MEMBER' and constraint_type = 'FOREIGN KEY'", String.class);
+        foreignKeys.forEach(fk -> jdbcTemplate.execute("alter table member drop constraint " + fk));
+        INDEXES.forEach(index -> jdbcTemplate.execute("drop index if exists " + index));
+        jdbcTemplate.execute("alter table member add constraint fk_member_team foreign key (team_id) references team");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> username() {
+        return repository.searchByWhere(byUsername);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamname() {
+        return repository.searchByWhere(byTeamname);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamnameAndAge() {
+        return repository.searchByWhere(byTeamnameAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> age() {
+        return repository.searchByWhere(byAge);
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.support.ConnectionGateFilter;
+import study.querydsl.repository.support.ExecutionMode;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.IntSupplier;
+
+/**
+ * querydsl.execution.mode=virtual 이면 Tomcat 요청을 가상 스레드에서 처리하고 {@link ConnectionGateFilter} 로 동시 요청 수를 제한한다.
+ * Java 21 이상에서는 spring.threads.virtual.enabled 와 같은 효과이고, 그 아래에서는 경고만 남기고 플랫폼 스레드를 쓴다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.execution", name = "mode", havingValue = "virtual")
+public class ExecutionModeConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        if (!ExecutionMode.isVirtualThreadSupported()) {
+            log.warn("querydsl.execution.mode=virtual requires Java 21+, running on {}. Using platform threads.",
+                    Runtime.version());
+            return protocolHandler -> {
+            };
+        }
+        ThreadFactory threadFactory = ExecutionMode.VIRTUAL.threadFactory("tomcat-virtual-");
+        return protocolHandler -> protocolHandler.setExecutor(command -> threadFactory.newThread(command).start());
+    }
+
+    /**
+     * max-concurrent-requests 가 0 이면 실제로 만들어진 커넥션 풀 크기에서 병렬 count 용 async pool-size 를 뺀 값을 쓴다.
+     */
+    @Bean
+    public ConnectionGateFilter connectionGateFilter(DataSource dataSource,
+                                                     @Value("${querydsl.execution.max-concurrent-requests:0}") int maxConcurrentRequests,
+                                                     @Value("${querydsl.async.pool-size:4}") int asyncPoolSize,
+                                                     @Value("${querydsl.execution.acquire-timeout:5s}") Duration acquireTimeout,
+                                                     @Value("${querydsl.execution.ungated-paths:/actuator/**}") String[] ungatedPaths) {
+        int permits = permits(maxConcurrentRequests, () -> connectionPoolSize(dataSource), asyncPoolSize);
+        log.info("Gating concurrent requests at {} permits", permits);
+        return new ConnectionGateFilter(permits, acquireTimeout, List.of(ungatedPaths));
+    }
+
+    static int permits(int maxConcurrentRequests, IntSupplier connectionPoolSize, int asyncPoolSize) {
+        if (maxConcurrentRequests > 0) {
+            return maxConcurrentRequests;
+        }
+        return Math.max(1, connectionPoolSize.getAsInt() - asyncPoolSize);
+    }
+
+    /**
+     * Hikari 풀의 maximum-pool-size. replica 라우팅이면 요청이 어느 풀로 가도 넘치지 않도록 가장 작은 풀의 크기를 쓴다.
+     * p6spy, LazyConnectionDataSourceProxy 등으로 감싸져 있어도 unwrap 으로 찾는다.
+     */
+    static int connectionPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+                return dataSource.unwrap(ReplicaRoutingDataSource.class).getTargets().stream()
+                        .mapToInt(ExecutionModeConfig::connectionPoolSize)
+                        .min()
+                        .orElseThrow();
+            }
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot inspect DataSource " + dataSource, e);
+        }
+        throw new IllegalStateException("Cannot determine connection pool size of " + dataSource
+                + ", set querydsl.execution.max-concurrent-requests");
+    }
+}
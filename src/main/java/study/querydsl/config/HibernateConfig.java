@@ -0,0 +1,19 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.support.SqlStatementInspector;
+
+@Configuration
+public class HibernateConfig {
+
+    /**
+     * SQL 을 보는 기능은 StatementInspector 를 따로 두지 않고 SqlStatementListener 로 등록한다. (SQL 분류는 문장당 한 번)
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(SqlStatementInspector statementInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica 로, 그 외(쓰기, 벌크 execute(), 트랜잭션 밖)는 primary 로 보낸다.
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화되지 않으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 쓴다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    public enum Strategy {
+        ROUND_ROBIN, LEAST_LOADED
+    }
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final Strategy strategy;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Strategy strategy) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.strategy = strategy;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            replicaKeys.add(key);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(strategy == Strategy.LEAST_LOADED ? leastLoaded() : roundRobin());
+    }
+
+    private int roundRobin() {
+        return Math.floorMod(sequence.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * 활성 커넥션이 가장 적은 replica. 같으면 round-robin 순서로 고른다.
+     */
+    private int leastLoaded() {
+        int start = roundRobin();
+        int best = start;
+        int bestActive = Integer.MAX_VALUE;
+        for (int n = 0; n < replicas.size(); n++) {
+            int i = (start + n) % replicas.size();
+            int active = activeConnections(replicas.get(i));
+            if (active < bestActive) {
+                best = i;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+
+    /**
+     * primary 와 replica 데이터소스. 요청 하나는 이 중 하나의 커넥션만 쓴다.
+     */
+    public List<DataSource> getTargets() {
+        List<DataSource> all = new ArrayList<>(replicas);
+        all.add(primary);
+        return all;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource dataSource : getTargets()) {
+            if (dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * querydsl.routing.enabled=true 이면 spring.datasource 대신 primary + replica 라우팅 데이터소스를 사용한다.
+ * 로컬에서는 application-replica.yml 처럼 H2 두 개를 띄워 확인할 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSourceProperties properties) {
+        DataSource primary = hikari(properties.getPrimary(), "primary");
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            replicas.add(hikari(properties.getReplicas().get(i), "replica-" + i));
+        }
+        return new ClosingLazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replicas, properties.getStrategy()));
+    }
+
+    private static HikariDataSource hikari(RoutingDataSourceProperties.Node node, String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(node.getUrl());
+        dataSource.setUsername(node.getUsername());
+        dataSource.setPassword(node.getPassword());
+        dataSource.setMaximumPoolSize(node.getMaximumPoolSize());
+        return dataSource;
+    }
+
+    static class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final ReplicaRoutingDataSource routingDataSource;
+
+        ClosingLazyConnectionDataSourceProxy(ReplicaRoutingDataSource routingDataSource) {
+            super(routingDataSource);
+            this.routingDataSource = routingDataSource;
+        }
+
+        @Override
+        public void close() throws IOException {
+            routingDataSource.close();
+        }
+    }
+}
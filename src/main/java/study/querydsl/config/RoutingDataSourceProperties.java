@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * primary/replica 데이터소스 설정 (querydsl.routing.*)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled = false;
+
+    private ReplicaRoutingDataSource.Strategy strategy = ReplicaRoutingDataSource.Strategy.ROUND_ROBIN;
+
+    private Node primary = new Node();
+
+    private List<Node> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+/**
+ * 2차 캐시 영역별 cache.gets(hit/miss), cache.puts, cache.evictions, cache.removals 를 등록한다.
+ * 영역별 요청 수는 hibernate-micrometer 의 hibernate.second.level.cache.* 로도 나온다.
+ * Hibernate 에 CacheManager 를 직접 넘기므로 Hibernate 내부 클래스 없이 같은 캐시를 본다.
+ * 2차 캐시가 꺼져 있으면(테스트 설정) Hibernate 가 캐시를 만들지 않으므로 아무것도 등록되지 않는다.
+ * <p>
+ * 메트릭과 hibernate.generate_statistics 는 querydsl.cache.metrics.enabled 일 때만 켠다. (기본은 꺼져 있다)
+ */
+@Configuration
+public class SecondLevelCacheMetricsConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.provider:com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider}") String provider) {
+        return Caching.getCachingProvider(provider).getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatisticsCustomizer(
+            @Value("${querydsl.cache.metrics.enabled:false}") boolean metricsEnabled) {
+        return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, metricsEnabled);
+    }
+
+    /**
+     * 영역은 SessionFactory 를 만들 때 생기므로 EntityManagerFactory 이후에 등록한다.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.cache.metrics", name = "enabled", havingValue = "true")
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String name : hibernateCacheManager.getCacheNames()) {
+                new JCacheMetrics<>(hibernateCacheManager.getCache(name), Tags.of("layer", "hibernate")).bindTo(registry);
+            }
+        };
+    }
+}
@@ -1,39 +1,242 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberCursorSlice;
 import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberSearchRequest;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.CountMode;
+import study.querydsl.repository.support.TableVersionTracker;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_BATCH_SIZE = 20;
+
     private final MemberJpaRepository repository;
 
     private final MemberRepository memberRepository;
 
+    private final ObjectMapper objectMapper;
+
+    private final TableVersionTracker versionTracker;
+
+    /**
+     * 버전은 이 프로세스에서 primary 에 쓴 것만 센다. replica 로 읽으면 복제 지연 중 읽은 옛 데이터가
+     * 새 버전의 ETag 로 나가 이후 계속 304 가 될 수 있으므로 routing 을 켜면 ETag 를 쓰지 않는다.
+     */
+    @Value("${querydsl.routing.enabled:false}")
+    private boolean replicaRouting;
+
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> members(MemberSearchCond memberSearchCond) {
         return repository.searchByWhere(memberSearchCond);
     }
 
+    /**
+     * /v1/members 의 컬럼 형식 응답. Accept 헤더로 JSON 또는 바이너리를 고른다. (형식은 MemberColumns 참고)
+     * 컬럼 형식은 모든 행을 읽어야 쓸 수 있으므로 조회는 요청 스레드에서 끝내고 쓰기만 스트리밍한다.
+     */
+    @GetMapping(value = "/v1/members", produces = MemberColumns.JSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> membersColumnarJson(MemberSearchCond memberSearchCond) {
+        MemberColumns columns = scanColumns(memberSearchCond);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MemberColumns.JSON_MEDIA_TYPE))
+                .body(out -> {
+                    try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                        columns.writeJson(json);
+                    }
+                });
+    }
+
+    @GetMapping(value = "/v1/members", produces = MemberColumns.BINARY_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> membersColumnarBinary(MemberSearchCond memberSearchCond) {
+        MemberColumns columns = scanColumns(memberSearchCond);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MemberColumns.BINARY_MEDIA_TYPE))
+                .body(out -> columns.writeBinary(new BufferedOutputStream(out, 64 * 1024)));
+    }
+
+    private MemberColumns scanColumns(MemberSearchCond memberSearchCond) {
+        MemberColumns columns = new MemberColumns();
+        repository.scanByWhere(memberSearchCond, columns::add);
+        return columns;
+    }
+
+    @GetMapping("/v1/members/stream")
+    public ResponseEntity<StreamingResponseBody> streamMembers(MemberSearchCond memberSearchCond,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(out -> writeCsv(memberSearchCond, out));
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> writeNdjson(memberSearchCond, out));
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+    }
+
+    private void writeNdjson(MemberSearchCond memberSearchCond, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        repository.streamByWhere(memberSearchCond, dto -> {
+            try {
+                buffered.write(writer.writeValueAsBytes(dto));
+                buffered.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        buffered.flush();
+    }
+
+    private void writeCsv(MemberSearchCond memberSearchCond, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("memberId,username,age,teamId,teamname\n");
+        repository.streamByWhere(memberSearchCond, dto -> {
+            try {
+                writer.write(String.valueOf(dto.getMemberId()));
+                writer.write(',');
+                writer.write(csv(dto.getUsername()));
+                writer.write(',');
+                writer.write(String.valueOf(dto.getAge()));
+                writer.write(',');
+                writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+                writer.write(',');
+                writer.write(csv(dto.getTeamname()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    /**
+     * 스프레드시트가 수식으로 읽지 않도록 =, +, -, @, 탭, CR 로 시작하는 값은 앞에 ' 를 붙인다. (문자열 칸에만 적용한다)
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * If-None-Match 가 현재 ETag 와 같으면 쿼리 없이 304 를 돌려준다. (/v3/members 도 같다)
+     * 버전은 프로세스마다 따로 세므로 여러 인스턴스 뒤에서는 인스턴스가 바뀌면 ETag 가 맞지 않아 200 이 된다.
+     */
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable, WebRequest request) {
+        if (!replicaRouting && request.checkNotModified(etag("v2", memberSearchCond, pageable, null))) {
+            return null;
+        }
         return memberRepository.searchPageSimple(memberSearchCond, pageable);
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable) {
-        return memberRepository.searchPageComplex(memberSearchCond, pageable);
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable,
+                                                 @RequestParam(defaultValue = "EXACT") CountMode count,
+                                                 WebRequest request) {
+        if (!replicaRouting && request.checkNotModified(etag("v3", memberSearchCond, pageable, count))) {
+            return null;
+        }
+        return memberRepository.searchPageComplex(memberSearchCond, pageable, count);
+    }
+
+    /**
+     * 조건, 페이지, member/team 버전으로 만든 ETag. 둘 중 한 테이블에라도 쓰기(벌크 포함)가 있으면 값이 바뀐다.
+     */
+    private String etag(String endpoint, MemberSearchCond memberSearchCond, Pageable pageable, CountMode count) {
+        String key = endpoint + '|' + versionTracker.epoch() + '|' + versionTracker.version("member", "team")
+                + '|' + memberSearchCond.normalized() + '|' + pageable + '|' + count;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * /v3/members 여러 건을 한 번에 조회한다. (count 는 EXACT)
+     */
+    @PostMapping("/members/batch")
+    public List<Page<MemberTeamDto>> searchPageBatch(@RequestBody List<MemberSearchRequest> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch size must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        for (MemberSearchRequest request : requests) {
+            if (request.getCondition() == null || request.getPage() < 0 || request.getSize() < 1 || request.getSize() > 1000) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "condition is required, page >= 0 and size between 1 and 1000");
+            }
+        }
+        return memberRepository.searchPageBatch(requests);
+    }
+
+    @GetMapping("/v4/members")
+    public MemberCursorSlice searchAfter(MemberSearchCond memberSearchCond,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "ID") MemberCursor.Order order,
+                                         @RequestParam(defaultValue = "10") int size) {
+        if (size < 1 || size > 1000) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and 1000");
+        }
+        MemberCursor memberCursor;
+        try {
+            memberCursor = cursor == null ? MemberCursor.first(order) : MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        Slice<MemberTeamDto> slice = memberRepository.searchAfter(memberSearchCond, memberCursor, size);
+        return new MemberCursorSlice(slice, memberCursor.getOrder());
     }
 }
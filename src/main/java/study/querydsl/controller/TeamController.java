@@ -0,0 +1,30 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsRepository teamStatsRepository;
+
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsRepository.findAll();
+    }
+
+    @GetMapping("/teams/{teamId}/stats")
+    public TeamStatsDto teamStats(@PathVariable long teamId) {
+        return teamStatsRepository.findById(teamId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "team not found: " + teamId));
+    }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 검색 결과를 필드별 배열로 모은 컬럼 형식. 팀은 (teamId, teamname) 사전으로 인코딩하고 행에는 사전 번호만 둔다.
+ * <p>
+ * JSON ({@link #JSON_MEDIA_TYPE})
+ * <pre>
+ * {"count":3,"memberId":[1,2,3],"username":["a","b","c"],"age":[10,20,30],
+ *  "teams":{"teamId":[7],"teamname":["teamA"]},"team":[0,0,-1]}
+ * </pre>
+ * 바이너리 ({@link #BINARY_MEDIA_TYPE}). 정수는 모두 unsigned LEB128 varint, signed 값은 zigzag 인코딩이다.
+ * <pre>
+ * "MCOL" version(1 byte = 1)
+ * count
+ * memberId[count]   : 이전 행과의 차이(zigzag). 첫 행은 0 과의 차이
+ * username[count]   : UTF-8 바이트 수 + 1 (0 이면 null), 바이트
+ * age[count]        : zigzag
+ * teams             : 사전 크기, (teamId zigzag, teamname 길이 + 1, 바이트) * 사전 크기
+ * team[count]       : 사전 번호 + 1 (0 이면 팀 없음)
+ * </pre>
+ */
+public class MemberColumns {
+
+    public static final String JSON_MEDIA_TYPE = "application/vnd.querydsl.member-columnar+json";
+    public static final String BINARY_MEDIA_TYPE = "application/vnd.querydsl.member-columnar";
+
+    private static final byte[] MAGIC = "MCOL".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    private int count;
+    private long[] memberIds = new long[1024];
+    private String[] usernames = new String[1024];
+    private int[] ages = new int[1024];
+    private int[] teams = new int[1024];
+
+    private final Map<Long, Integer> teamCodes = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamnames = new ArrayList<>();
+
+    /**
+     * MemberJpaRepository.RowHandler 로 그대로 넘길 수 있다.
+     */
+    public void add(long memberId, String username, int age, Long teamId, String teamname) {
+        if (count == memberIds.length) {
+            int capacity = count * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teams = Arrays.copyOf(teams, capacity);
+        }
+        memberIds[count] = memberId;
+        usernames[count] = username;
+        ages[count] = age;
+        teams[count] = teamId == null ? -1 : teamCodes.computeIfAbsent(teamId, id -> {
+            teamIds.add(id);
+            teamnames.add(teamname);
+            return teamIds.size() - 1;
+        });
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void writeJson(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("count", count);
+
+        json.writeFieldName("memberId");
+        json.writeArray(memberIds, 0, count);
+
+        json.writeArrayFieldStart("username");
+        for (int i = 0; i < count; i++) {
+            json.writeString(usernames[i]);
+        }
+        json.writeEndArray();
+
+        json.writeFieldName("age");
+        json.writeArray(ages, 0, count);
+
+        json.writeObjectFieldStart("teams");
+        json.writeArrayFieldStart("teamId");
+        for (Long teamId : teamIds) {
+            json.writeNumber(teamId);
+        }
+        json.writeEndArray();
+        json.writeArrayFieldStart("teamname");
+        for (String teamname : teamnames) {
+            json.writeString(teamname);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+
+        json.writeFieldName("team");
+        json.writeArray(teams, 0, count);
+
+        json.writeEndObject();
+        json.flush();
+    }
+
+    public void writeBinary(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        writeVarint(data, count);
+
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(data, zigzag(memberIds[i] - previous));
+            previous = memberIds[i];
+        }
+        for (int i = 0; i < count; i++) {
+            writeString(data, usernames[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            writeVarint(data, zigzag(ages[i]));
+        }
+
+        writeVarint(data, teamIds.size());
+        for (int i = 0; i < teamIds.size(); i++) {
+            writeVarint(data, zigzag(teamIds.get(i)));
+            writeString(data, teamnames.get(i));
+        }
+        for (int i = 0; i < count; i++) {
+            writeVarint(data, teams[i] + 1L);
+        }
+        data.flush();
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            writeVarint(data, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(data, bytes.length + 1L);
+        data.write(bytes);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이징 커서. 마지막으로 읽은 행의 정렬 키(order, age, memberId)를 담는다.
+ * 클라이언트에게는 encode() 결과만 노출한다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+
+    public enum Order {
+        ID, AGE
+    }
+
+    private final Order order;
+    private final Integer age;
+    private final Long memberId;
+
+    private MemberCursor(Order order, Integer age, Long memberId) {
+        this.order = order;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor first(Order order) {
+        return new MemberCursor(order, null, null);
+    }
+
+    public static MemberCursor next(Order order, MemberTeamDto last) {
+        return new MemberCursor(order, order == Order.AGE ? last.getAge() : null, last.getMemberId());
+    }
+
+    public boolean isFirst() {
+        return memberId == null;
+    }
+
+    public String encode() {
+        String raw = order + ":" + (age == null ? "" : age) + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            Order order = Order.valueOf(parts[0]);
+            Integer age = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+            Long memberId = Long.valueOf(parts[2]);
+            if (order == Order.AGE && age == null) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new MemberCursor(order, age, memberId);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Data
+public class MemberCursorSlice {
+
+    private List<MemberTeamDto> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public MemberCursorSlice(Slice<MemberTeamDto> slice, MemberCursor.Order order) {
+        this.content = slice.getContent();
+        this.size = slice.getNumberOfElements();
+        this.hasNext = slice.hasNext();
+        if (slice.hasNext()) {
+            MemberTeamDto last = content.get(content.size() - 1);
+            this.nextCursor = MemberCursor.next(order, last).encode();
+        }
+    }
+}
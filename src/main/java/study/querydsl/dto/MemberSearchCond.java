@@ -1,6 +1,9 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import org.springframework.util.StringUtils;
+
+import java.util.StringJoiner;
 
 @Data
 public class MemberSearchCond {
@@ -10,4 +13,35 @@ public class MemberSearchCond {
     private Integer ageGoe;
     private Integer ageLoe;
 
+    /**
+     * 조회 결과가 같은 조건이 같은 값이 되도록 빈 문자열을 null 로 바꾼 사본. 캐시 키로 사용한다.
+     */
+    public MemberSearchCond normalized() {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername(StringUtils.hasText(username) ? username : null);
+        cond.setTeamname(StringUtils.hasText(teamname) ? teamname : null);
+        cond.setAgeGoe(ageGoe);
+        cond.setAgeLoe(ageLoe);
+        return cond;
+    }
+
+    /**
+     * 값이 있는 조건 이름 목록. 쿼리 계측 태그로 사용한다.
+     */
+    public String shape() {
+        StringJoiner joiner = new StringJoiner(",").setEmptyValue("none");
+        if (StringUtils.hasText(username)) {
+            joiner.add("username");
+        }
+        if (StringUtils.hasText(teamname)) {
+            joiner.add("teamname");
+        }
+        if (ageGoe != null) {
+            joiner.add("ageGoe");
+        }
+        if (ageLoe != null) {
+            joiner.add("ageLoe");
+        }
+        return joiner.toString();
+    }
 }
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * 일괄 검색(POST /members/batch)의 검색 한 건. /v3/members 의 쿼리 파라미터와 같은 의미이다.
+ */
+@Data
+public class MemberSearchRequest {
+
+    private MemberSearchCond condition = new MemberSearchCond();
+    private int page = 0;
+    private int size = 10;
+
+    public Pageable toPageable() {
+        return PageRequest.of(page, size);
+    }
+}
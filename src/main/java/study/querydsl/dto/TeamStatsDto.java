@@ -0,0 +1,30 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 팀별 회원 수와 나이 통계. 회원이 없으면 ageMin/ageMax/ageAvg 는 null 이다.
+ */
+@Data
+@NoArgsConstructor
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+    private Double ageAvg;
+
+    public TeamStatsDto(Long teamId, String teamName, long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+        this.ageAvg = memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
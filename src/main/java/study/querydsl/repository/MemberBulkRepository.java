@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkProgress;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * update(member)...execute() / delete(member)...execute() 를 id 구간으로 나눠 청크마다 짧은 트랜잭션으로 실행한다.
+ * 한 문장으로 테이블 전체를 오래 잠그거나 undo 로그를 키우지 않는다.
+ * <p>
+ * 청크 경계는 조건에 맞는 행을 id 순으로 chunk-size 번째마다 잘라 정하므로 id 가 듬성듬성해도 청크 크기는 일정하다.
+ * 청크마다 영속성 컨텍스트를 비우고, 마지막 청크가 끝나면(중간에 실패해도) 2차 캐시의 Member, Team.members 를 한 번 지운다.
+ * 청크가 각각 커밋되므로 중간에 실패하면 앞 청크까지는 반영된 상태로 남는다.
+ * where 는 member 자신의 컬럼만 사용해야 한다. (벌크 DML 은 조인을 지원하지 않는다)
+ */
+@Slf4j
+@Repository
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final int defaultChunkSize;
+    private final Duration defaultThrottle;
+
+    public MemberBulkRepository(EntityManager em, PlatformTransactionManager transactionManager,
+                                @Value("${querydsl.bulk.chunk-size:1000}") int defaultChunkSize,
+                                @Value("${querydsl.bulk.throttle:0ms}") Duration defaultThrottle) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultThrottle = defaultThrottle;
+    }
+
+    public long update(Predicate where, Function<JPAUpdateClause, JPAUpdateClause> assignments) {
+        return update(where, assignments, defaultChunkSize, defaultThrottle, progress -> {
+        });
+    }
+
+    /**
+     * @param assignments set 절. 예) clause -> clause.set(member.username, "비회원")
+     * @param throttle    청크 사이에 쉬는 시간
+     * @return 바뀐 행 수
+     */
+    public long update(Predicate where, Function<JPAUpdateClause, JPAUpdateClause> assignments,
+                       int chunkSize, Duration throttle, Consumer<BulkProgress> progress) {
+        return inChunks("update", where, chunkSize, throttle, progress,
+                chunk -> assignments.apply(queryFactory.update(member)).where(chunk).execute());
+    }
+
+    public long delete(Predicate where) {
+        return delete(where, defaultChunkSize, defaultThrottle, progress -> {
+        });
+    }
+
+    public long delete(Predicate where, int chunkSize, Duration throttle, Consumer<BulkProgress> progress) {
+        return inChunks("delete", where, chunkSize, throttle, progress,
+                chunk -> queryFactory.delete(member).where(chunk).execute());
+    }
+
+    private long inChunks(String operation, Predicate where, int chunkSize, Duration throttle,
+                          Consumer<BulkProgress> progress, ToLongFunction<Predicate> statement) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Chunked bulk " + operation + " must not run inside a transaction");
+        }
+        long start = System.nanoTime();
+        long total = 0;
+        int chunks = 0;
+        Long lowerExclusive = null;
+        try {
+            while (true) {
+                Long lower = lowerExclusive;
+                long[] result = chunkTransaction.execute(status -> {
+                    Long upper = chunkUpperBound(where, lower, chunkSize);
+                    long rows = statement.applyAsLong(ExpressionUtils.allOf(where,
+                            lower == null ? null : member.id.gt(lower),
+                            upper == null ? null : member.id.loe(upper)));
+                    em.clear();
+                    return new long[]{rows, upper == null ? Long.MIN_VALUE : upper};
+                });
+
+                chunks++;
+                total += result[0];
+                lowerExclusive = result[1] == Long.MIN_VALUE ? null : result[1];
+                BulkProgress current = new BulkProgress(chunks, result[0], total, lowerExclusive,
+                        Duration.ofNanos(System.nanoTime() - start));
+                progress.accept(current);
+                log.debug("bulk {} chunk {} : {} rows (total {}, last id {})",
+                        operation, chunks, result[0], total, lowerExclusive);
+                if (current.isDone()) {
+                    break;
+                }
+                sleep(throttle);
+            }
+        } finally {
+            if (total > 0) {
+                evictSecondLevelCache();
+            }
+        }
+        log.info("bulk {} done : {} rows in {} chunks, {} ms",
+                operation, total, chunks, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return total;
+    }
+
+    /**
+     * lower 다음부터 조건에 맞는 chunkSize 번째 id. 남은 행이 chunkSize 보다 적으면 null (마지막 청크)
+     */
+    private Long chunkUpperBound(Predicate where, Long lower, int chunkSize) {
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .where(where, lower == null ? null : member.id.gt(lower))
+                .orderBy(member.id.asc())
+                .offset(chunkSize - 1)
+                .fetchFirst();
+    }
+
+    private void evictSecondLevelCache() {
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                .evictCollectionData(Team.class.getName() + ".members");
+    }
+
+    private static void sleep(Duration throttle) {
+        if (throttle.isZero() || throttle.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(throttle.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted between bulk chunks", e);
+        }
+    }
+}
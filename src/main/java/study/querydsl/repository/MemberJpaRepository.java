@@ -6,6 +6,11 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.StringPath;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCond;
@@ -16,9 +21,14 @@ import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.repository.support.QueryMetrics;
+import study.querydsl.repository.support.SingleFlight;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
@@ -26,13 +36,25 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberJpaRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
 
     private final JPAQueryFactory queryFactory;
 
-    public MemberJpaRepository(EntityManager em) {
+    private final SingleFlight singleFlight;
+
+    private final QueryMetrics queryMetrics;
+
+    private final int writeChunkSize;
+
+    public MemberJpaRepository(EntityManager em, SingleFlight singleFlight, QueryMetrics queryMetrics,
+                               @Value("${querydsl.write.chunk-size:1000}") int writeChunkSize) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.singleFlight = singleFlight;
+        this.queryMetrics = queryMetrics;
+        this.writeChunkSize = writeChunkSize;
     }
 
 
@@ -40,6 +62,35 @@ public class MemberJpaRepository {
         em.persist(member);
     }
 
+    /**
+     * chunk-size 건마다 flush 하고 영속성 컨텍스트를 비운다. flush 된 insert 는 hibernate.jdbc.batch_size 단위로 묶여 나간다.
+     * 호출이 끝나면 전달한 Member 는 준영속 상태이다.
+     * 저장하는 동안에는 2차 캐시에 넣지 않는다. (CacheMode.IGNORE, 끝나면 원래 모드로 돌린다)
+     *
+     * @return 저장한 건수
+     */
+    @Transactional
+    public long saveAll(Iterable<Member> members) {
+        Session session = em.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            long count = 0;
+            for (Member member : members) {
+                em.persist(member);
+                if (++count % writeChunkSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return count;
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+
     public Optional<Member> findById(Long id) {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
@@ -60,10 +111,19 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findByName_querydsl(String username) {
-        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetch();
+        return queryFactory.selectFrom(member)
+                .where(member.username.eq(username))
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByBuilder(MemberSearchCond memberSearchCond) {
+        return queryMetrics.record("searchByBuilder", memberSearchCond.shape(),
+                () -> doSearchByBuilder(memberSearchCond));
+    }
+
+    private List<MemberTeamDto> doSearchByBuilder(MemberSearchCond memberSearchCond) {
         BooleanBuilder builder = new BooleanBuilder();
         if (StringUtils.hasText(memberSearchCond.getUsername())) {
             builder.and(member.username.eq(memberSearchCond.getUsername()));
@@ -87,7 +147,14 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public List<MemberTeamDto> searchByWhere(MemberSearchCond memberSearchCond) {
+        return singleFlight.execute(List.of("searchByWhere", memberSearchCond.normalized()),
+                () -> queryMetrics.record("searchByWhere", memberSearchCond.shape(),
+                        () -> doSearchByWhere(memberSearchCond)));
+    }
+
+    private List<MemberTeamDto> doSearchByWhere(MemberSearchCond memberSearchCond) {
         return queryFactory
                 .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
                 .from(member)
@@ -99,6 +166,86 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * searchByWhere 와 같은 조건의 결과를 리스트로 모으지 않고 한 건씩 action 에 넘긴다.
+     * DTO 프로젝션이라 영속성 컨텍스트에 엔티티가 쌓이지 않으므로 JDBC fetch size 단위로 읽기만 해도 결과 크기와 관계없이 메모리 사용량이 일정하다.
+     *
+     * @return 넘긴 건수
+     */
+    @Transactional(readOnly = true)
+    public long streamByWhere(MemberSearchCond memberSearchCond, Consumer<MemberTeamDto> action) {
+        return queryMetrics.record("streamByWhere", memberSearchCond.shape(),
+                () -> doStreamByWhere(memberSearchCond, action));
+    }
+
+    private long doStreamByWhere(MemberSearchCond memberSearchCond, Consumer<MemberTeamDto> action) {
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = queryFactory
+                .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(memberSearchCond.getUsername()),
+                        teamnameEq(memberSearchCond.getTeamname()),
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        ageGoe(memberSearchCond.getAgeGoe()))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * streamByWhere 와 같지만 DTO 도 Tuple 도 만들지 않고 JDBC 결과 행의 값을 그대로 handler 에 넘긴다.
+     * memberId 순서로 넘긴다. (MemberColumns 가 memberId 를 차이값으로 인코딩한다)
+     *
+     * @return 넘긴 건수
+     */
+    @Transactional(readOnly = true)
+    public long scanByWhere(MemberSearchCond memberSearchCond, RowHandler handler) {
+        return queryMetrics.record("scanByWhere", memberSearchCond.shape(),
+                () -> doScanByWhere(memberSearchCond, handler));
+    }
+
+    @SuppressWarnings("unchecked")
+    private long doScanByWhere(MemberSearchCond memberSearchCond, RowHandler handler) {
+        long count = 0;
+        try (Stream<Object[]> rows = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(usernameEq(memberSearchCond.getUsername()),
+                        teamnameEq(memberSearchCond.getTeamname()),
+                        ageLoe(memberSearchCond.getAgeLoe()),
+                        ageGoe(memberSearchCond.getAgeGoe()))
+                .orderBy(member.id.asc())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .createQuery()
+                .getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                handler.row((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * scanByWhere 의 한 행. team 이 없으면 teamId, teamname 은 null 이다.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(long memberId, String username, int age, Long teamId, String teamname);
+    }
+
     private BooleanExpression ageGoe(Integer age) {
         return age != null ? member.age.goe(age) : null;
     }
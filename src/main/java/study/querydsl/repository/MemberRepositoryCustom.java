@@ -2,13 +2,30 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberSearchRequest;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.CountMode;
 
 import java.util.List;
 
+/**
+ * readOnly 로 표시한 검색 메서드는 routing 이 켜져 있으면 replica 에서 실행된다.
+ * 쓰기 메서드를 추가할 때는 readOnly 를 붙이지 않는다. (FlushMode.MANUAL 이라 변경이 flush 되지 않는다)
+ * <p>
+ * search, searchPageSimple, searchPageComplex 는 결과 캐시와 single-flight 를 먼저 거치고
+ * 실제로 조회하는 요청만 구현 안에서 읽기 전용 트랜잭션을 연다. (기다리는 요청이 커넥션을 잡지 않도록 여기에는 붙이지 않는다)
+ */
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCond memberSearchCond);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable);
+    Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable, CountMode countMode);
+    @Transactional(readOnly = true)
+    Slice<MemberTeamDto> searchAfter(MemberSearchCond memberSearchCond, MemberCursor cursor, int size);
+    @Transactional(readOnly = true)
+    List<Page<MemberTeamDto>> searchPageBatch(List<MemberSearchRequest> requests);
 }
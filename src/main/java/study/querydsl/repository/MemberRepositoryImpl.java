@@ -1,46 +1,109 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberSearchRequest;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountMode;
+import study.querydsl.repository.support.MemberBitmapIndex;
+import study.querydsl.repository.support.PageCounter;
+import study.querydsl.repository.support.PagePrefetcher;
+import study.querydsl.repository.support.QueryMetrics;
+import study.querydsl.repository.support.QueryShapeCache;
+import study.querydsl.repository.support.SearchResultCache;
+import study.querydsl.repository.support.SingleFlight;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final QMemberTeamDto MEMBER_TEAM_DTO = new QMemberTeamDto(
+            member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname"));
+
     private final JPAQueryFactory queryFactory;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    private final PageCounter pageCounter;
+
+    private final SingleFlight singleFlight;
+
+    private final SearchResultCache resultCache;
+
+    private final QueryMetrics queryMetrics;
+
+    private final MemberBitmapIndex bitmapIndex;
+
+    private final PagePrefetcher pagePrefetcher;
+
+    /**
+     * single-flight 로 합치는 검색은 메서드에 트랜잭션을 걸지 않고, 실제로 조회하는 요청만 이 트랜잭션을 연다.
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * search, searchPageComplex 의 content 쿼리. 조건식은 searchQuery 의 것을 그대로 쓴다.
+     * 비트맵 인덱스와 같은 결과가 나오도록 member id 순으로 정렬한다.
+     */
+    private final QueryShapeCache<MemberSearchCond, MemberTeamDto> searchShapes;
+
+    public MemberRepositoryImpl(EntityManager em, PageCounter pageCounter, SingleFlight singleFlight,
+                                SearchResultCache resultCache, QueryMetrics queryMetrics, MemberBitmapIndex bitmapIndex,
+                                PagePrefetcher pagePrefetcher, PlatformTransactionManager transactionManager) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.pageCounter = pageCounter;
+        this.singleFlight = singleFlight;
+        this.resultCache = resultCache;
+        this.queryMetrics = queryMetrics;
+        this.bitmapIndex = bitmapIndex;
+        this.pagePrefetcher = pagePrefetcher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.searchShapes = new QueryShapeCache<>(em, MEMBER_TEAM_DTO,
+                cond -> searchQuery(cond).orderBy(member.id.asc()), List.<Function<MemberSearchCond, Object>>of(
+                cond -> StringUtils.hasText(cond.getUsername()) ? cond.getUsername() : null,
+                cond -> StringUtils.hasText(cond.getTeamname()) ? cond.getTeamname() : null,
+                MemberSearchCond::getAgeLoe,
+                MemberSearchCond::getAgeGoe));
     }
 
+    /**
+     * 비트맵 인덱스가 켜져 있고 최신이면 메모리에서 답한다. 어느 쪽이든 member id 순이고 같은 계측/캐시를 거친다.
+     */
     public List<MemberTeamDto> search(MemberSearchCond memberSearchCond) {
-        return queryFactory
-                .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(memberSearchCond.getUsername()),
-                        teamnameEq(memberSearchCond.getTeamname()),
-                        ageLoe(memberSearchCond.getAgeLoe()),
-                        ageGoe(memberSearchCond.getAgeGoe()))
-                .fetch();
+        return execute("search", memberSearchCond, List.of("search", memberSearchCond.normalized()),
+                () -> bitmapIndex.search(memberSearchCond).orElseGet(() -> searchShapes.fetch(memberSearchCond)));
     }
 
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
+        return execute("searchPageSimple", memberSearchCond, List.of("searchPageSimple", memberSearchCond.normalized(), pageable),
+                () -> doSearchPageSimple(memberSearchCond, pageable));
+    }
+
+    private Page<MemberTeamDto> doSearchPageSimple(MemberSearchCond memberSearchCond, Pageable pageable) {
         QueryResults<MemberTeamDto> results = queryFactory
                     .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
                     .from(member)
@@ -59,40 +122,140 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable) {
-        List<MemberTeamDto> result = getSearchPageList(memberSearchCond, pageable);
+        return searchPageComplex(memberSearchCond, pageable, CountMode.EXACT);
+    }
+
+    /**
+     * querydsl.prefetch.enabled 이면 페이지를 차례로 읽을 때 다음 페이지를 미리 읽어 둔다.
+     * 비트맵 인덱스가 최신이면 메모리에서 답하며, search 와 마찬가지로 DB 조회와 정렬/계측/캐시가 같다.
+     */
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable, CountMode countMode) {
+        return pagePrefetcher.get(List.of("searchPageComplex", memberSearchCond.normalized(), countMode), pageable,
+                page -> execute("searchPageComplex", memberSearchCond, List.of("searchPageComplex", memberSearchCond.normalized(), page, countMode),
+                        () -> bitmapIndex.searchPage(memberSearchCond, page, countMode)
+                                .orElseGet(() -> doSearchPageComplex(memberSearchCond, page, countMode))));
+    }
+
+    /**
+     * 여러 검색을 하나의 읽기 전용 트랜잭션(커넥션 하나)에서 차례로 실행한다.
+     * count 는 정규화된 조건별로 한 번만 실행하고, 같은 조건의 다른 페이지 결과로 total 을 알 수 있으면 실행하지 않는다.
+     */
+    public List<Page<MemberTeamDto>> searchPageBatch(List<MemberSearchRequest> requests) {
+        return queryMetrics.record("searchPageBatch", "batch", () -> doSearchPageBatch(requests),
+                pages -> pages.stream().mapToLong(Page::getNumberOfElements).sum());
+    }
+
+    private List<Page<MemberTeamDto>> doSearchPageBatch(List<MemberSearchRequest> requests) {
+        List<List<MemberTeamDto>> contents = new ArrayList<>(requests.size());
+        Map<MemberSearchCond, Long> totals = new HashMap<>();
+        for (MemberSearchRequest request : requests) {
+            MemberSearchCond cond = request.getCondition().normalized();
+            Pageable pageable = request.toPageable();
+            List<MemberTeamDto> content = getSearchPageList(cond, pageable);
+            contents.add(content);
+            if (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty())) {
+                totals.put(cond, pageable.getOffset() + content.size());
+            }
+        }
+
+        List<Page<MemberTeamDto>> pages = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            MemberSearchCond cond = requests.get(i).getCondition().normalized();
+            pages.add(PageableExecutionUtils.getPage(contents.get(i), requests.get(i).toPageable(),
+                    () -> totals.computeIfAbsent(cond,
+                            c -> queryMetrics.timeCount(() -> getSearchPageSize(c).fetchCount()))));
+        }
+        return pages;
+    }
 
-        JPAQuery<Member> totalQuery = getSearchPageSize(memberSearchCond);
+    /**
+     * 결과 캐시 -> single-flight -> 계측 -> 읽기 전용 트랜잭션 순으로 감싸 실행한다. 계측은 캐시에서 답하지 않은 조회만 기록한다.
+     * 트랜잭션은 single-flight 안쪽에서 열리므로 먼저 온 요청을 기다리는 요청은 커넥션을 잡지 않는다.
+     * 호출한 쪽에 트랜잭션이 있으면 그 트랜잭션에 참여한다.
+     * (비트맵 인덱스 적중 여부는 repository.bitmap_index 로 따로 센다)
+     */
+    private <T> T execute(String method, MemberSearchCond memberSearchCond, Object key, Supplier<T> query) {
+        return resultCache.get(key, () -> singleFlight.execute(key,
+                () -> queryMetrics.record(method, memberSearchCond.shape(),
+                        () -> readOnlyTransaction.execute(status -> query.get()))));
+    }
 
+    private Page<MemberTeamDto> doSearchPageComplex(MemberSearchCond memberSearchCond, Pageable pageable, CountMode countMode) {
         //return new PageImpl<>(result, pageable, total);
-        return PageableExecutionUtils.getPage(result, pageable, totalQuery::fetchCount);
+        return pageCounter.getPage(() -> getSearchPageList(memberSearchCond, pageable), pageable, countMode,
+                List.of("searchPageComplex", memberSearchCond.normalized()),
+                () -> getSearchPageSize(memberSearchCond));
     }
 
-    private JPAQuery<Member> getSearchPageSize(MemberSearchCond memberSearchCond) {
-        return queryFactory
-                .selectFrom(member)
+    /**
+     * offset 대신 마지막으로 읽은 행의 정렬 키 이후부터 size + 1 건을 읽어 다음 페이지 존재 여부를 판단한다.
+     * 페이지 깊이와 관계없이 인덱스 seek 한 번으로 끝난다.
+     */
+    public Slice<MemberTeamDto> searchAfter(MemberSearchCond memberSearchCond, MemberCursor cursor, int size) {
+        return queryMetrics.record("searchAfter", memberSearchCond.shape(),
+                () -> doSearchAfter(memberSearchCond, cursor, size));
+    }
+
+    private Slice<MemberTeamDto> doSearchAfter(MemberSearchCond memberSearchCond, MemberCursor cursor, int size) {
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
+                .from(member)
                 .leftJoin(member.team, team)
                 .where(usernameEq(memberSearchCond.getUsername()),
                         teamnameEq(memberSearchCond.getTeamname()),
                         ageLoe(memberSearchCond.getAgeLoe()),
-                        ageGoe(memberSearchCond.getAgeGoe()))
-                ;
+                        ageGoe(memberSearchCond.getAgeGoe()),
+                        after(cursor))
+                .orderBy(cursorOrder(cursor))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        return new SliceImpl<>(content, PageRequest.ofSize(size), hasNext);
+    }
+
+    private BooleanExpression after(MemberCursor cursor) {
+        if (cursor == null || cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getOrder() == MemberCursor.Order.AGE) {
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+        if (cursor != null && cursor.getOrder() == MemberCursor.Order.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+
+    private JPAQuery<Long> getSearchPageSize(MemberSearchCond memberSearchCond) {
+        return searchQuery(memberSearchCond).select(member.id);
     }
 
     private List<MemberTeamDto> getSearchPageList(MemberSearchCond memberSearchCond, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return searchShapes.fetch(memberSearchCond);
+        }
+        return searchShapes.fetch(memberSearchCond, pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private JPAQuery<?> searchQuery(MemberSearchCond memberSearchCond) {
         return queryFactory
-                .select(new QMemberTeamDto(member.id.as("memberId"), member.username, member.age, team.id.as("teamId"), team.name.as("teamname")))
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(usernameEq(memberSearchCond.getUsername()),
                         teamnameEq(memberSearchCond.getTeamname()),
                         ageLoe(memberSearchCond.getAgeLoe()),
-                        ageGoe(memberSearchCond.getAgeGoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();
+                        ageGoe(memberSearchCond.getAgeGoe()));
     }
 
-
     private BooleanExpression ageGoe(Integer age) {
         return age != null ? member.age.goe(age) : null;
     }
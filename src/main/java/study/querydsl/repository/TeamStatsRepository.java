@@ -0,0 +1,351 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BulkWriteEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 팀별 회원 수, 나이 합계/최소/최대를 메모리에 유지한다. 조회는 member 전체가 아니라 팀 수에 비례한다.
+ * <p>
+ * Member/Team 의 insert, update(팀 변경 포함), delete 이벤트를 트랜잭션 커밋 후에 반영한다.
+ * 벌크 쓰기({@link BulkWriteEvent})가 있었거나 시작 직후에는 다음 조회에서 group by 로 다시 만든다.
+ * 다시 만드는 도중에 반영할 변경이 들어오면 그 다음 조회에서 한 번 더 만든다.
+ * 트랜잭션이 변경을 모으기 시작한 뒤에 다시 만들기가 시작됐다면, 새로 만든 통계에 그 변경이 이미 들어 있을 수 있으므로
+ * 반영하지 않고 다시 만든다.
+ */
+@Repository
+public class TeamStatsRepository implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate rebuildTransaction;
+    private final Object rebuildLock = new Object();
+
+    private Map<Long, TeamAggregate> teams = new HashMap<>();
+    private volatile boolean stale = true;
+    private boolean rebuilding;
+    private boolean changedDuringRebuild;
+    private long rebuildGeneration;
+
+    public TeamStatsRepository(EntityManagerFactory entityManagerFactory, EntityManager em,
+                               PlatformTransactionManager transactionManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setReadOnly(true);
+        this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        ensureFresh();
+        synchronized (this) {
+            List<TeamStatsDto> result = new ArrayList<>(teams.size());
+            teams.forEach((teamId, aggregate) -> result.add(aggregate.toDto(teamId)));
+            result.sort((a, b) -> Long.compare(a.getTeamId(), b.getTeamId()));
+            return result;
+        }
+    }
+
+    public Optional<TeamStatsDto> findById(long teamId) {
+        ensureFresh();
+        synchronized (this) {
+            return Optional.ofNullable(teams.get(teamId)).map(aggregate -> aggregate.toDto(teamId));
+        }
+    }
+
+    /**
+     * 다음 조회에서 DB 로부터 다시 만든다.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            stale = true;
+            if (rebuilding) {
+                changedDuringRebuild = true;
+            }
+        }
+    }
+
+    @EventListener
+    public void onBulkWrite(BulkWriteEvent event) {
+        if (!"member".equals(event.table()) && !"team".equals(event.table())) {
+            return;
+        }
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member m) {
+            Long teamId = teamId(m.getTeam());
+            int age = m.getAge();
+            defer(teams -> add(teams, teamId, age));
+        } else if (event.getEntity() instanceof Team t) {
+            long teamId = t.getId();
+            String name = t.getName();
+            defer(teams -> teams.computeIfAbsent(teamId, id -> new TeamAggregate()).name = name);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            invalidate();
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        if (event.getEntity() instanceof Member) {
+            Long oldTeamId = teamId((Team) event.getOldState()[propertyIndex(persister, "team")]);
+            Long newTeamId = teamId((Team) event.getState()[propertyIndex(persister, "team")]);
+            int oldAge = (Integer) event.getOldState()[propertyIndex(persister, "age")];
+            int newAge = (Integer) event.getState()[propertyIndex(persister, "age")];
+            defer(teams -> {
+                remove(teams, oldTeamId, oldAge);
+                add(teams, newTeamId, newAge);
+            });
+        } else if (event.getEntity() instanceof Team t) {
+            long teamId = t.getId();
+            String name = t.getName();
+            defer(teams -> teams.computeIfAbsent(teamId, id -> new TeamAggregate()).name = name);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member m) {
+            Long teamId = teamId(m.getTeam());
+            int age = m.getAge();
+            defer(teams -> remove(teams, teamId, age));
+        } else if (event.getEntity() instanceof Team t) {
+            long teamId = t.getId();
+            defer(teams -> teams.remove(teamId));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void ensureFresh() {
+        if (!stale) {
+            return;
+        }
+        synchronized (rebuildLock) {
+            if (!stale) {
+                return;
+            }
+            synchronized (this) {
+                stale = false;
+                rebuilding = true;
+                changedDuringRebuild = false;
+                rebuildGeneration++;
+            }
+            Map<Long, TeamAggregate> fresh;
+            try {
+                fresh = rebuildTransaction.execute(status -> load());
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    rebuilding = false;
+                    stale = true;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                teams = fresh;
+                rebuilding = false;
+                if (changedDuringRebuild) {
+                    stale = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 팀 목록과 (팀, 나이)별 회원 수. 나이 분포가 있어야 삭제 후에도 최소/최대를 다시 구할 수 있다.
+     */
+    private Map<Long, TeamAggregate> load() {
+        Map<Long, TeamAggregate> result = new HashMap<>();
+        for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+            result.computeIfAbsent(row.get(team.id), id -> new TeamAggregate()).name = row.get(team.name);
+        }
+        NumberExpression<Long> members = member.count();
+        List<Tuple> ages = queryFactory
+                .select(member.team.id, member.age, members)
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id, member.age)
+                .fetch();
+        for (Tuple row : ages) {
+            TeamAggregate aggregate = result.computeIfAbsent(row.get(member.team.id), id -> new TeamAggregate());
+            aggregate.add(row.get(member.age), row.get(members));
+        }
+        return result;
+    }
+
+    /**
+     * 커밋된 뒤에 반영한다. 트랜잭션 밖이면 바로 반영한다.
+     */
+    private void defer(Consumer<Map<Long, TeamAggregate>> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(new PendingChanges(currentGeneration(), List.of(change)));
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingChanges changes = new PendingChanges(currentGeneration(), new ArrayList<>());
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatsRepository.this);
+                    if (status == STATUS_COMMITTED) {
+                        apply(changes);
+                    }
+                }
+            });
+            pending = changes;
+        }
+        pending.changes().add(change);
+    }
+
+    private synchronized long currentGeneration() {
+        return rebuildGeneration;
+    }
+
+    /**
+     * 변경을 모으기 시작한 뒤에 다시 만들기가 시작됐으면 그 결과에 변경이 이미 들어 있을 수 있어 다시 만든다.
+     */
+    private synchronized void apply(PendingChanges pending) {
+        if (rebuilding) {
+            changedDuringRebuild = true;
+            return;
+        }
+        if (stale) {
+            return;
+        }
+        if (pending.generation() != rebuildGeneration) {
+            stale = true;
+            return;
+        }
+        pending.changes().forEach(change -> change.accept(teams));
+    }
+
+    /**
+     * @param generation 트랜잭션이 첫 변경을 모을 때의 rebuildGeneration
+     */
+    private record PendingChanges(long generation, List<Consumer<Map<Long, TeamAggregate>>> changes) {
+    }
+
+    private static void add(Map<Long, TeamAggregate> teams, Long teamId, int age) {
+        if (teamId != null) {
+            teams.computeIfAbsent(teamId, id -> new TeamAggregate()).add(age, 1);
+        }
+    }
+
+    private static void remove(Map<Long, TeamAggregate> teams, Long teamId, int age) {
+        if (teamId != null && teams.containsKey(teamId)) {
+            teams.get(teamId).remove(age);
+        }
+    }
+
+    private static Long teamId(Team team) {
+        return team == null ? null : team.getId();
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        String[] names = persister.getPropertyNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(property)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(persister.getEntityName() + " has no property " + property);
+    }
+
+    private static class TeamAggregate {
+
+        private String name;
+        private long count;
+        private long ageSum;
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+
+        void add(int age, long members) {
+            count += members;
+            ageSum += (long) age * members;
+            ages.merge(age, members, Long::sum);
+        }
+
+        void remove(int age) {
+            Long members = ages.get(age);
+            if (members == null) {
+                return;
+            }
+            if (members == 1) {
+                ages.remove(age);
+            } else {
+                ages.put(age, members - 1);
+            }
+            count--;
+            ageSum -= age;
+        }
+
+        TeamStatsDto toDto(long teamId) {
+            return new TeamStatsDto(teamId, name, count, ageSum,
+                    ages.isEmpty() ? null : ages.firstKey(),
+                    ages.isEmpty() ? null : ages.lastKey());
+        }
+    }
+}
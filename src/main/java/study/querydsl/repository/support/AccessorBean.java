@@ -0,0 +1,210 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Projections.bean / Projections.fields 와 같은 규칙(경로 이름 또는 as() 별칭 = 프로퍼티 이름)으로 DTO 를 채운다.
+ * 기본 생성자와 setter 는 DTO 클래스와 (이름, 타입) 목록마다 한 번 LambdaMetafactory 로 만들어 캐시하므로 행마다 리플렉션 호출이 없다.
+ * setter 가 없는 프로퍼티는 필드 setter MethodHandle 을 사용한다.
+ *
+ * @see AccessorProjections
+ */
+public class AccessorBean<T> extends FactoryExpressionBase<T> {
+
+    private static final Map<BindingKey, Binding> BINDINGS = new ConcurrentHashMap<>();
+
+    private final List<Expression<?>> args;
+    private final Binding binding;
+
+    AccessorBean(Class<? extends T> type, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        List<String> names = new ArrayList<>(args.length);
+        List<Class<?>> types = new ArrayList<>(args.length);
+        for (Expression<?> arg : args) {
+            names.add(propertyName(arg));
+            types.add(arg.getType());
+        }
+        this.binding = BINDINGS.computeIfAbsent(new BindingKey(type, names, types), Binding::create);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        Object bean = binding.constructor.get();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                binding.setters[i].accept(bean, values[i]);
+            }
+        }
+        return (T) bean;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        return obj instanceof AccessorBean<?> other
+                && getType().equals(other.getType())
+                && args.equals(other.args);
+    }
+
+    /**
+     * QBean 과 같다. member.username 은 username, member.username.as("name") / ExpressionUtils.as(..., "name") 은 name
+     */
+    private static String propertyName(Expression<?> arg) {
+        if (arg instanceof Path<?> path) {
+            return path.getMetadata().getName();
+        }
+        if (arg instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS
+                && operation.getArg(1) instanceof Path<?> alias) {
+            return alias.getMetadata().getName();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + arg + ", use as() to give it a property name");
+    }
+
+    private record BindingKey(Class<?> type, List<String> names, List<Class<?>> types) {
+    }
+
+    private static final class Binding {
+
+        private final Supplier<Object> constructor;
+        private final BiConsumer<Object, Object>[] setters;
+
+        private Binding(Supplier<Object> constructor, BiConsumer<Object, Object>[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        @SuppressWarnings("unchecked")
+        static Binding create(BindingKey key) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(key.type(), MethodHandles.lookup());
+                BiConsumer<Object, Object>[] setters = new BiConsumer[key.names().size()];
+                for (int i = 0; i < setters.length; i++) {
+                    setters[i] = setter(lookup, key.type(), key.names().get(i), key.types().get(i));
+                }
+                return new Binding(constructor(lookup, key.type()), setters);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot bind " + key.names() + " to " + key.type().getName(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Supplier<Object> constructor(MethodHandles.Lookup lookup, Class<?> type)
+                throws ReflectiveOperationException {
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Supplier.class),
+                        MethodType.methodType(Object.class),
+                        constructor,
+                        MethodType.methodType(type));
+                return (Supplier<Object>) site.getTarget().invokeExact();
+            } catch (Throwable e) {
+                MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+                return () -> {
+                    try {
+                        return generic.invokeExact();
+                    } catch (Throwable t) {
+                        throw new IllegalStateException("Cannot create " + type.getName(), t);
+                    }
+                };
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static BiConsumer<Object, Object> setter(MethodHandles.Lookup lookup, Class<?> type, String name,
+                                                         Class<?> valueType) throws ReflectiveOperationException {
+            Method method = findSetter(type, name, valueType);
+            if (method != null) {
+                MethodHandle setter = lookup.unreflect(method);
+                Class<?> parameter = method.getParameterTypes()[0];
+                try {
+                    CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                            MethodType.methodType(BiConsumer.class),
+                            MethodType.methodType(void.class, Object.class, Object.class),
+                            setter,
+                            MethodType.methodType(void.class, type, MethodType.methodType(parameter).wrap().returnType()));
+                    return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+                } catch (Throwable e) {
+                    return invoker(setter, name);
+                }
+            }
+            Field field = findField(type, name);
+            if (field == null) {
+                throw new NoSuchFieldException(type.getName() + " has no setter or field for " + name);
+            }
+            return invoker(lookup.unreflectSetter(field), name);
+        }
+
+        private static BiConsumer<Object, Object> invoker(MethodHandle setter, String name) {
+            MethodHandle generic = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (bean, value) -> {
+                try {
+                    generic.invokeExact(bean, value);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Cannot set " + name, t);
+                }
+            };
+        }
+
+        private static Method findSetter(Class<?> type, String name, Class<?> valueType) {
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            Class<?> value = MethodType.methodType(valueType).wrap().returnType();
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(setterName)
+                        && method.getParameterCount() == 1
+                        && method.getReturnType() == void.class
+                        && !Modifier.isStatic(method.getModifiers())
+                        && MethodType.methodType(method.getParameterTypes()[0]).wrap().returnType().isAssignableFrom(value)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private static Field findField(Class<?> type, String name) {
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                        return field;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
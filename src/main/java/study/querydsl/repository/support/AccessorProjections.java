@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+
+/**
+ * 리플렉션 없이 DTO 를 채우는 Projections.bean 대체.
+ * <pre>
+ * query.select(AccessorProjections.bean(UserDto.class, member.username.as("name"), member.age))
+ * </pre>
+ */
+public final class AccessorProjections {
+
+    private AccessorProjections() {
+    }
+
+    public static <T> AccessorBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new AccessorBean<>(type, exprs);
+    }
+}
@@ -0,0 +1,87 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 별도 스레드의 읽기 전용 트랜잭션에서 실행한다.
+ * 작업 스레드마다 트랜잭션이 따로 열리므로 공유 EntityManager 프록시도 별도의 영속성 컨텍스트와 커넥션을 사용한다.
+ * 호출한 쪽 트랜잭션의 커밋되지 않은 변경은 보이지 않는다.
+ * <p>
+ * 동시에 실행되는 작업마다 커넥션을 하나씩 더 쓰므로 pool-size 는 커넥션 풀보다 작게 잡는다.
+ * 큐가 가득 차면 호출한 스레드에서 직접 실행한다.
+ * querydsl.execution.mode=virtual 이면 작업 스레드를 가상 스레드로 만들지만 동시 실행 수는 pool-size 그대로이다.
+ */
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AsyncQueryExecutor(PlatformTransactionManager transactionManager,
+                              @Value("${querydsl.async.pool-size:4}") int poolSize,
+                              @Value("${querydsl.async.queue-capacity:256}") int queueCapacity,
+                              @Value("${querydsl.execution.mode:platform}") ExecutionMode executionMode) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                executionMode.threadFactory("async-query-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    /**
+     * submit 과 같지만 작업 스레드가 모두 바쁘면 호출한 스레드에서 실행하지 않고 빈 값을 돌려준다.
+     * 미리 읽기처럼 당장 필요하지 않은 작업에 쓴다.
+     */
+    public <T> Optional<CompletableFuture<T>> trySubmit(Supplier<T> query) {
+        return trySubmit(() -> true, query);
+    }
+
+    /**
+     * 작업 스레드에서 claim 이 false 이면 트랜잭션을 열지 않고(커넥션을 잡지 않고) null 로 끝낸다.
+     * 요청 스레드와 작업 스레드 중 한쪽만 실행해야 하는 작업에 쓴다.
+     */
+    public <T> Optional<CompletableFuture<T>> trySubmit(BooleanSupplier claim, Supplier<T> query) {
+        if (executor.getActiveCount() >= executor.getMaximumPoolSize() || !executor.getQueue().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(CompletableFuture.supplyAsync(
+                () -> claim.getAsBoolean() ? readOnlyTransaction.execute(status -> query.get()) : null, executor));
+    }
+
+    /**
+     * CompletionException 을 벗겨 원래 예외를 던진다.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository.support;
+
+import java.time.Duration;
+
+/**
+ * 청크 단위 벌크 연산의 진행 상황. 청크 하나가 커밋될 때마다 전달된다.
+ *
+ * @param chunk       커밋된 청크 수 (1부터)
+ * @param chunkRows   이번 청크에서 바뀐 행 수
+ * @param totalRows   지금까지 바뀐 행 수
+ * @param lastId      이번 청크의 마지막 id. 마지막 청크이면 null
+ * @param elapsed     시작부터 걸린 시간
+ */
+public record BulkProgress(int chunk, long chunkRows, long totalRows, Long lastId, Duration elapsed) {
+
+    public boolean isDone() {
+        return lastId == null;
+    }
+}
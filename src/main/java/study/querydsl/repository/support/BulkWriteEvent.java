@@ -0,0 +1,8 @@
+package study.querydsl.repository.support;
+
+/**
+ * 영속성 컨텍스트를 거치지 않은 쓰기(update(member)...execute() 등)가 table 에 실행되었다.
+ * 엔티티 이벤트로 유지하는 파생 데이터는 이 이벤트를 받으면 DB 에서 다시 만들어야 한다.
+ */
+public record BulkWriteEvent(String table) {
+}
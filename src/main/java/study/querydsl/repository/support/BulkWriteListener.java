@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate 가 엔티티 하나를 저장할 때 만드는 SQL 이 아닌 update/delete/insert ... select 에 {@link BulkWriteEvent} 를 발행한다.
+ * 구분 기준은 {@link SqlStatement} 참고.
+ */
+@Component
+@RequiredArgsConstructor
+public class BulkWriteListener implements SqlStatementListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void onStatement(SqlStatement statement) {
+        if (statement.kind() == SqlStatement.Kind.BULK_WRITE) {
+            eventPublisher.publishEvent(new BulkWriteEvent(statement.table()));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * {@link CountMode#ESTIMATED} 로 만든 페이지. totalCapped 가 true 이면 totalElements 는 하한 값이다.
+ */
+public class CappedPage<T> extends PageImpl<T> {
+
+    private final boolean totalCapped;
+
+    public CappedPage(List<T> content, Pageable pageable, long total, boolean totalCapped) {
+        super(content, pageable, total);
+        this.totalCapped = totalCapped;
+    }
+
+    public boolean isTotalCapped() {
+        return totalCapped;
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.repository.support;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 가상 스레드 모드에서는 Tomcat 스레드 수가 동시 요청을 막아주지 않으므로 요청을 permits 개만 들여보낸다.
+ * 나머지는 도착 순서대로 기다리고 acquire-timeout 안에 차례가 오지 않으면 503 을 돌려준다.
+ * <p>
+ * ungatedPaths(actuator 등)를 뺀 모든 요청이 대상이다. /members/batch, /v1/members/stream 처럼 커넥션을 오래 쓰는 요청도 포함된다.
+ * 비동기로 응답을 쓰는 요청(StreamingResponseBody)은 응답이 끝날 때 permit 을 돌려준다.
+ *
+ * @see study.querydsl.config.ExecutionModeConfig
+ */
+public class ConnectionGateFilter extends OncePerRequestFilter {
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final List<String> ungatedPaths;
+
+    public ConnectionGateFilter(int permits, Duration acquireTimeout, List<String> ungatedPaths) {
+        this.permits = new Semaphore(permits, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.ungatedPaths = List.copyOf(ungatedPaths);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return ungatedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many concurrent queries");
+            return;
+        }
+        Permit permit = new Permit();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 한 번만 돌려준다. (비동기 요청은 onTimeout/onError 뒤에 onComplete 가 또 온다)
+     */
+    private class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.repository.support;
+
+/**
+ * 페이징 total count 를 구하는 방식
+ */
+public enum CountMode {
+
+    /**
+     * 매번 count 쿼리를 실행한다.
+     */
+    EXACT,
+
+    /**
+     * 정규화된 검색 조건을 키로 count 결과를 TTL 동안 캐시한다. member/team (querydsl.count.cache.tables) 에 쓰기가 일어나면 무효화된다.
+     */
+    CACHED,
+
+    /**
+     * 상한(estimate-cap)까지만 센다. 상한을 넘으면 total 은 상한 값이고 totalCapped 가 true 이다. ("1000+")
+     */
+    ESTIMATED,
+
+    /**
+     * EXACT 와 같지만 count 를 content 쿼리와 동시에 다른 스레드의 읽기 전용 트랜잭션에서 실행한다.
+     * 커넥션을 하나 더 쓰므로 async 작업 스레드가 비어 있을 때만 동시에 실행하고, 아니면 EXACT 로 동작한다.
+     */
+    PARALLEL
+}
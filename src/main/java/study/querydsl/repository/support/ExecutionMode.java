@@ -0,0 +1,72 @@
+package study.querydsl.repository.support;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 요청 처리와 조회 쿼리를 실행할 스레드 종류 (querydsl.execution.mode)
+ * <p>
+ * 빌드 대상이 Java 17 이라 가상 스레드는 리플렉션으로 만든다. Java 21 미만에서 실행하면 VIRTUAL 도 플랫폼 스레드를 쓴다.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Tomcat 스레드 풀과 고정 크기 풀을 그대로 사용한다.
+     */
+    PLATFORM,
+
+    /**
+     * 작업마다 가상 스레드를 만든다. 커넥션 풀보다 많은 요청은 {@link ConnectionGateFilter} 에서 대기한다.
+     */
+    VIRTUAL;
+
+    private static final ThreadFactoryBuilder VIRTUAL_THREADS = ThreadFactoryBuilder.lookup();
+
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * 실제로 가상 스레드를 쓰는지. VIRTUAL 이어도 런타임이 지원하지 않으면 false 이다.
+     */
+    public boolean usesVirtualThreads() {
+        return this == VIRTUAL && isVirtualThreadSupported();
+    }
+
+    public ThreadFactory threadFactory(String prefix) {
+        if (usesVirtualThreads()) {
+            return VIRTUAL_THREADS.build(prefix);
+        }
+        return new CustomizableThreadFactory(prefix);
+    }
+
+    /**
+     * Thread.ofVirtual().name(prefix, 0).factory()
+     */
+    private record ThreadFactoryBuilder(Method ofVirtual, Method name, Method factory) {
+
+        static ThreadFactoryBuilder lookup() {
+            try {
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                return new ThreadFactoryBuilder(
+                        Thread.class.getMethod("ofVirtual"),
+                        builderType.getMethod("name", String.class, long.class),
+                        builderType.getMethod("factory"));
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+
+        ThreadFactory build(String prefix) {
+            try {
+                Object builder = ofVirtual.invoke(null);
+                builder = name.invoke(builder, prefix, 0L);
+                return (ThreadFactory) factory.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create virtual thread factory", e);
+            }
+        }
+    }
+}
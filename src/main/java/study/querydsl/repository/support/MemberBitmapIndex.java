@@ -0,0 +1,359 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Member 를 컬럼 배열(id, age, 팀, 사전 인코딩한 username)로 메모리에 올려두고 {@link MemberSearchCond} 를 비트맵 교집합으로 계산한다.
+ * 행 번호는 member id 오름차순이다. 팀 이름과 나이 구간(age-bucket-width)마다 RoaringBitmap 을, username 은 코드별 행 목록을 둔다.
+ * <p>
+ * 만든 시점의 member/team 버전과 현재 버전이 다르면 stale 로 보고 empty 를 돌려주어 DB 로 조회하게 하고,
+ * {@link AsyncQueryExecutor} 에서 다시 만든다. 재구축은 min-rebuild-interval 에 한 번까지만 한다.
+ * 읽기-쓰기 트랜잭션 안에서는 아직 flush 되지 않은 변경이 있을 수 있으므로 사용하지 않는다.
+ */
+@Slf4j
+@Component
+public class MemberBitmapIndex {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final TableVersionTracker versionTracker;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final boolean enabled;
+    private final int ageBucketWidth;
+    private final long minRebuildIntervalNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+    private volatile long lastRebuildNanos;
+
+    public MemberBitmapIndex(EntityManager em, TableVersionTracker versionTracker,
+                             AsyncQueryExecutor asyncQueryExecutor, MeterRegistry registry,
+                             @Value("${querydsl.bitmap-index.enabled:false}") boolean enabled,
+                             @Value("${querydsl.bitmap-index.age-bucket-width:10}") int ageBucketWidth,
+                             @Value("${querydsl.bitmap-index.min-rebuild-interval:5s}") Duration minRebuildInterval) {
+        Assert.isTrue(ageBucketWidth > 0, "querydsl.bitmap-index.age-bucket-width must be positive: " + ageBucketWidth);
+        this.em = em;
+        this.versionTracker = versionTracker;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.enabled = enabled;
+        this.ageBucketWidth = ageBucketWidth;
+        this.minRebuildIntervalNanos = minRebuildInterval.toNanos();
+        this.hits = Counter.builder("repository.bitmap_index").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("repository.bitmap_index").tag("result", "miss").register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    public Optional<List<MemberTeamDto>> search(MemberSearchCond memberSearchCond) {
+        Snapshot current = current();
+        if (current == null) {
+            return Optional.empty();
+        }
+        RoaringBitmap matches = current.evaluate(memberSearchCond);
+        return Optional.of(current.rows(matches, 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * count 는 항상 정확한 값이다. ESTIMATED 요청에는 상한 없이 센 {@link CappedPage} 를 돌려준다.
+     */
+    public Optional<Page<MemberTeamDto>> searchPage(MemberSearchCond memberSearchCond, Pageable pageable, CountMode countMode) {
+        Snapshot current = current();
+        if (current == null) {
+            return Optional.empty();
+        }
+        RoaringBitmap matches = current.evaluate(memberSearchCond);
+        long total = matches.getLongCardinality();
+        List<MemberTeamDto> content = pageable.isPaged()
+                ? current.rows(matches, pageable.getOffset(), pageable.getPageSize())
+                : current.rows(matches, 0, Integer.MAX_VALUE);
+        if (countMode == CountMode.ESTIMATED) {
+            return Optional.of(new CappedPage<>(content, pageable, total, false));
+        }
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    public boolean isFresh() {
+        Snapshot current = snapshot;
+        return current != null && current.version == versionTracker.version("member", "team");
+    }
+
+    private Snapshot current() {
+        if (!enabled || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        if (current == null || current.version != versionTracker.version("member", "team")) {
+            misses.increment();
+            rebuildAsync();
+            return null;
+        }
+        hits.increment();
+        return current;
+    }
+
+    private void rebuildAsync() {
+        if (System.nanoTime() - lastRebuildNanos < minRebuildIntervalNanos && snapshot != null) {
+            return;
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        asyncQueryExecutor.submit(this::load).whenComplete((loaded, e) -> {
+            if (e != null) {
+                log.warn("Member bitmap index rebuild failed", e);
+            } else {
+                snapshot = loaded;
+            }
+            lastRebuildNanos = System.nanoTime();
+            rebuilding.set(false);
+        });
+    }
+
+    /**
+     * 읽기 전에 버전을 잡아두므로 읽는 도중 커밋된 쓰기가 있으면 만들자마자 stale 이 된다.
+     */
+    private Snapshot load() {
+        long start = System.nanoTime();
+        long version = versionTracker.version("member", "team");
+        Snapshot.Builder builder = new Snapshot.Builder(ageBucketWidth);
+        try (Stream<Object[]> rows = em.createQuery(
+                        "select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t order by m.id",
+                        Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> builder.add((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]));
+        }
+        Snapshot loaded = builder.build(version);
+        log.info("Member bitmap index built: {} rows, {} ms",
+                loaded.size, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return loaded;
+    }
+
+    /**
+     * 만든 뒤에는 바뀌지 않는다.
+     */
+    private static final class Snapshot {
+
+        private final long version;
+        private final int size;
+        private final int ageBucketWidth;
+
+        private final long[] ids;
+        private final int[] ages;
+        private final int[] teams;
+        private final int[] usernames;
+        private final long[] teamIds;
+        private final String[] teamNames;
+        private final String[] usernameDictionary;
+
+        private final RoaringBitmap all;
+        private final Map<String, RoaringBitmap> byTeamName;
+        private final TreeMap<Integer, RoaringBitmap> byAgeBucket;
+        private final Map<String, Integer> usernameCodes;
+        private final int[] usernameOffsets;
+        private final int[] usernameRows;
+
+        private Snapshot(long version, Builder builder) {
+            this.version = version;
+            this.size = builder.size;
+            this.ageBucketWidth = builder.ageBucketWidth;
+            this.ids = Arrays.copyOf(builder.ids, size);
+            this.ages = Arrays.copyOf(builder.ages, size);
+            this.teams = Arrays.copyOf(builder.teams, size);
+            this.usernames = Arrays.copyOf(builder.usernames, size);
+            this.teamIds = builder.teamIds.stream().mapToLong(Long::longValue).toArray();
+            this.teamNames = builder.teamNames.toArray(String[]::new);
+            this.usernameDictionary = builder.usernameDictionary.toArray(String[]::new);
+            this.usernameCodes = builder.usernameCodes;
+
+            this.all = RoaringBitmap.bitmapOfRange(0, size);
+            this.byTeamName = new HashMap<>();
+            this.byAgeBucket = new TreeMap<>();
+            for (int row = 0; row < size; row++) {
+                if (teams[row] >= 0 && teamNames[teams[row]] != null) {
+                    byTeamName.computeIfAbsent(teamNames[teams[row]], name -> new RoaringBitmap()).add(row);
+                }
+                byAgeBucket.computeIfAbsent(Math.floorDiv(ages[row], ageBucketWidth), bucket -> new RoaringBitmap()).add(row);
+            }
+            byTeamName.values().forEach(RoaringBitmap::runOptimize);
+            byAgeBucket.values().forEach(RoaringBitmap::runOptimize);
+
+            // username 코드별 행 목록 (counting sort). 행은 오름차순으로 들어간다.
+            this.usernameOffsets = new int[usernameDictionary.length + 1];
+            for (int row = 0; row < size; row++) {
+                if (usernames[row] >= 0) {
+                    usernameOffsets[usernames[row] + 1]++;
+                }
+            }
+            for (int code = 0; code < usernameDictionary.length; code++) {
+                usernameOffsets[code + 1] += usernameOffsets[code];
+            }
+            this.usernameRows = new int[usernameOffsets[usernameDictionary.length]];
+            int[] next = Arrays.copyOf(usernameOffsets, usernameDictionary.length);
+            for (int row = 0; row < size; row++) {
+                if (usernames[row] >= 0) {
+                    usernameRows[next[usernames[row]]++] = row;
+                }
+            }
+        }
+
+        RoaringBitmap evaluate(MemberSearchCond cond) {
+            RoaringBitmap result = all;
+            if (StringUtils.hasText(cond.getUsername())) {
+                result = RoaringBitmap.and(result, username(cond.getUsername()));
+            }
+            if (StringUtils.hasText(cond.getTeamname())) {
+                result = RoaringBitmap.and(result, byTeamName.getOrDefault(cond.getTeamname(), new RoaringBitmap()));
+            }
+            if (cond.getAgeGoe() != null || cond.getAgeLoe() != null) {
+                result = RoaringBitmap.and(result, ageRange(cond.getAgeGoe(), cond.getAgeLoe()));
+            }
+            return result;
+        }
+
+        private RoaringBitmap username(String username) {
+            Integer code = usernameCodes.get(username);
+            if (code == null) {
+                return new RoaringBitmap();
+            }
+            return RoaringBitmap.bitmapOf(Arrays.copyOfRange(usernameRows, usernameOffsets[code], usernameOffsets[code + 1]));
+        }
+
+        /**
+         * 범위에 완전히 들어가는 구간은 비트맵을 그대로 합치고, 걸치는 구간만 age 배열로 거른다.
+         */
+        private RoaringBitmap ageRange(Integer goe, Integer loe) {
+            int low = goe == null ? Integer.MIN_VALUE : goe;
+            int high = loe == null ? Integer.MAX_VALUE : loe;
+            RoaringBitmap result = new RoaringBitmap();
+            if (low > high) {
+                return result;
+            }
+            Map<Integer, RoaringBitmap> buckets = byAgeBucket.subMap(
+                    Math.floorDiv(low, ageBucketWidth), true, Math.floorDiv(high, ageBucketWidth), true);
+            for (Map.Entry<Integer, RoaringBitmap> bucket : buckets.entrySet()) {
+                long bucketLow = (long) bucket.getKey() * ageBucketWidth;
+                long bucketHigh = bucketLow + ageBucketWidth - 1;
+                if (bucketLow >= low && bucketHigh <= high) {
+                    result.or(bucket.getValue());
+                    continue;
+                }
+                PeekableIntIterator rows = bucket.getValue().getIntIterator();
+                while (rows.hasNext()) {
+                    int row = rows.next();
+                    if (ages[row] >= low && ages[row] <= high) {
+                        result.add(row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        List<MemberTeamDto> rows(RoaringBitmap matches, long offset, int limit) {
+            long total = matches.getLongCardinality();
+            if (offset >= total) {
+                return List.of();
+            }
+            List<MemberTeamDto> result = new ArrayList<>((int) Math.min(limit, total - offset));
+            PeekableIntIterator rows = matches.getIntIterator();
+            rows.advanceIfNeeded(matches.select((int) offset));
+            while (rows.hasNext() && result.size() < limit) {
+                result.add(dto(rows.next()));
+            }
+            return result;
+        }
+
+        private MemberTeamDto dto(int row) {
+            int team = teams[row];
+            return new MemberTeamDto(ids[row],
+                    usernames[row] < 0 ? null : usernameDictionary[usernames[row]],
+                    ages[row],
+                    team < 0 ? null : teamIds[team],
+                    team < 0 ? null : teamNames[team]);
+        }
+
+        private static final class Builder {
+
+            private final int ageBucketWidth;
+            private int size;
+            private long[] ids = new long[1024];
+            private int[] ages = new int[1024];
+            private int[] teams = new int[1024];
+            private int[] usernames = new int[1024];
+            private final List<Long> teamIds = new ArrayList<>();
+            private final List<String> teamNames = new ArrayList<>();
+            private final Map<Long, Integer> teamOrdinals = new HashMap<>();
+            private final List<String> usernameDictionary = new ArrayList<>();
+            private final Map<String, Integer> usernameCodes = new HashMap<>();
+
+            Builder(int ageBucketWidth) {
+                this.ageBucketWidth = ageBucketWidth;
+            }
+
+            void add(Long id, String username, Integer age, Long teamId, String teamName) {
+                if (size == ids.length) {
+                    int capacity = size * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    ages = Arrays.copyOf(ages, capacity);
+                    teams = Arrays.copyOf(teams, capacity);
+                    usernames = Arrays.copyOf(usernames, capacity);
+                }
+                ids[size] = id;
+                ages[size] = age;
+                teams[size] = teamId == null ? -1 : teamOrdinals.computeIfAbsent(teamId, key -> {
+                    teamIds.add(key);
+                    teamNames.add(teamName);
+                    return teamIds.size() - 1;
+                });
+                usernames[size] = username == null ? -1 : usernameCodes.computeIfAbsent(username, key -> {
+                    usernameDictionary.add(key);
+                    return usernameDictionary.size() - 1;
+                });
+                size++;
+            }
+
+            Snapshot build(long version) {
+                return new Snapshot(version, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청 단위로 {@link NPlusOneDetector} 의 집계 범위를 연다. open-in-view 로 트랜잭션 밖에서 일어나는 지연 로딩도 잡힌다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.n-plus-one", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class NPlusOneDetectionFilter extends OncePerRequestFilter {
+
+    private final NPlusOneDetector detector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        detector.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            detector.endRequest();
+        }
+    }
+}
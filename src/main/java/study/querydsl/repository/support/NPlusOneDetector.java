@@ -0,0 +1,143 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 요청(또는 요청 밖이면 트랜잭션) 하나 안에서 같은 select 가 threshold 번 이상 실행되면 N+1 로 보고 경고를 남긴다.
+ * 경고에는 직전에 호출된 레포지토리 메서드(부모 엔티티를 조회한 곳)와 반복 조회를 일으킨 코드 위치가 함께 남는다.
+ * querydsl.n-plus-one.enabled=true 일 때만 등록된다.
+ *
+ * @see NPlusOneDetectionFilter
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.n-plus-one", name = "enabled", havingValue = "true")
+public class NPlusOneDetector implements SqlStatementListener {
+
+    private static final String APP_PACKAGE = "study.querydsl.";
+    private static final String REPOSITORY_PACKAGE = "study.querydsl.repository.";
+    private static final String SUPPORT_PACKAGE = "study.querydsl.repository.support.";
+    private static final String CONFIG_PACKAGE = "study.querydsl.config.";
+    private static final int MAX_DETECTIONS = 100;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+    private final Deque<Detection> detections = new ArrayDeque<>();
+    private final MeterRegistry registry;
+    private final int threshold;
+
+    public NPlusOneDetector(MeterRegistry registry,
+                            @Value("${querydsl.n-plus-one.threshold:5}") int threshold) {
+        this.registry = registry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void onStatement(SqlStatement statement) {
+        if (statement.kind() != SqlStatement.Kind.SELECT) {
+            return;
+        }
+        Scope scope = currentScope();
+        if (scope == null) {
+            return;
+        }
+        String sql = statement.sql();
+        String origin = origin();
+        if (isRepository(origin)) {
+            scope.lastRepositoryMethod = origin;
+        }
+        int count = scope.counts.merge(sql, 1, Integer::sum);
+        if (count == threshold) {
+            report(new Detection(sql, count, scope.lastRepositoryMethod, origin));
+        }
+    }
+
+    public void beginRequest() {
+        scopes.set(new Scope());
+    }
+
+    public void endRequest() {
+        scopes.remove();
+    }
+
+    public List<Detection> recentDetections() {
+        synchronized (detections) {
+            return new ArrayList<>(detections);
+        }
+    }
+
+    private Scope currentScope() {
+        Scope scope = scopes.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+        Scope transactionScope = new Scope();
+        scopes.set(transactionScope);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (scopes.get() == transactionScope) {
+                    scopes.remove();
+                }
+            }
+        });
+        return transactionScope;
+    }
+
+    private void report(Detection detection) {
+        log.warn("N+1 suspected: {} executions of the same select (repository call: {}, triggered at: {})\n{}",
+                detection.executions(), detection.repositoryMethod(), detection.triggeredAt(), detection.sql());
+        registry.counter("repository.n_plus_one",
+                "repository", String.valueOf(detection.repositoryMethod())).increment();
+        synchronized (detections) {
+            if (detections.size() == MAX_DETECTIONS) {
+                detections.removeFirst();
+            }
+            detections.addLast(detection);
+        }
+    }
+
+    /**
+     * 이 SQL 을 실행시킨 애플리케이션 코드의 첫 프레임 (support/config 패키지와 스프링/하이버네이트 프록시 제외)
+     */
+    private static String origin() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> {
+                    String className = frame.getClassName();
+                    return className.startsWith(APP_PACKAGE)
+                            && !className.startsWith(SUPPORT_PACKAGE)
+                            && !className.startsWith(CONFIG_PACKAGE)
+                            && !className.contains("$$")
+                            && !className.contains("$HibernateProxy");
+                })
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .orElse(null));
+    }
+
+    private static boolean isRepository(String origin) {
+        return origin != null && origin.startsWith(REPOSITORY_PACKAGE)
+                && (origin.contains("Repository.") || origin.contains("RepositoryImpl."));
+    }
+
+    public record Detection(String sql, int executions, String repositoryMethod, String triggeredAt) {
+    }
+
+    private static class Scope {
+        private final Map<String, Integer> counts = new HashMap<>();
+        private String lastRepositoryMethod;
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberTemplate;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@link CountMode} 에 따라 페이지의 total count 를 구한다.
+ * 필요 없는 경우 count 쿼리를 생략하는 {@link PageableExecutionUtils} 의 동작은 모든 모드에서 유지된다.
+ * <p>
+ * PARALLEL 은 요청 스레드가 커넥션을 잡은 채로 다른 커넥션을 쓰는 count 를 기다리므로 커넥션 풀 고갈 위험이 있다.
+ * 그래서 count 는 AsyncQueryExecutor.trySubmit 으로만 넘기고(추가 커넥션은 최대 querydsl.async.pool-size 개),
+ * content 를 다 읽었을 때 count 가 아직 시작되지 않았으면 가져와서 요청 스레드에서 직접 실행한다.
+ * 요청 스레드는 이미 실행 중인 count 만 기다린다.
+ */
+@Component
+public class PageCounter {
+
+    /**
+     * ESTIMATED 에서 행마다 읽는 값. count 쿼리의 select 절(엔티티 등)을 읽지 않고 상수만 읽는다.
+     */
+    private static final NumberTemplate<Integer> ONE = Expressions.numberTemplate(Integer.class, "1");
+
+    private final TableVersionTracker versionTracker;
+    private final QueryMetrics queryMetrics;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final Cache<CountKey, Long> cache;
+    private final String[] tables;
+    private final long estimateCap;
+
+    public PageCounter(TableVersionTracker versionTracker, QueryMetrics queryMetrics, AsyncQueryExecutor asyncQueryExecutor,
+                       @Value("${querydsl.count.cache.ttl:30s}") Duration ttl,
+                       @Value("${querydsl.count.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${querydsl.count.cache.tables:member,team}") String[] tables,
+                       @Value("${querydsl.count.estimate-cap:1000}") long estimateCap) {
+        this.versionTracker = versionTracker;
+        this.queryMetrics = queryMetrics;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+        this.tables = tables;
+        this.estimateCap = estimateCap;
+    }
+
+    /**
+     * content 쿼리 실행 전에 count 를 시작할 수 있도록 content 를 Supplier 로 받는다. (PARALLEL)
+     */
+    public <T> Page<T> getPage(Supplier<List<T>> content, Pageable pageable, CountMode countMode,
+                               Object cacheKey, Supplier<JPAQuery<?>> countQuery) {
+        if (countMode == CountMode.PARALLEL) {
+            return parallelPage(content, pageable, countQuery);
+        }
+        return getPage(content.get(), pageable, countMode, cacheKey, countQuery);
+    }
+
+    /**
+     * @param cacheKey   CACHED 모드에서 사용할 키. 쿼리 이름과 정규화된 검색 조건처럼 equals/hashCode 가 정의된 값이어야 한다.
+     * @param countQuery 호출할 때마다 새 count 쿼리를 만든다
+     */
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, CountMode countMode,
+                               Object cacheKey, Supplier<JPAQuery<?>> countQuery) {
+        return switch (countMode) {
+            case EXACT, PARALLEL -> PageableExecutionUtils.getPage(content, pageable,
+                    () -> queryMetrics.timeCount(() -> countQuery.get().fetchCount()));
+            case CACHED -> PageableExecutionUtils.getPage(content, pageable, () -> cachedCount(cacheKey, countQuery));
+            case ESTIMATED -> estimatedPage(content, pageable, countQuery);
+        };
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private long cachedCount(Object cacheKey, Supplier<JPAQuery<?>> countQuery) {
+        CountKey key = new CountKey(cacheKey, versionTracker.version(tables));
+        return cache.get(key, k -> queryMetrics.timeCount(() -> countQuery.get().fetchCount()));
+    }
+
+    private <T> Page<T> estimatedPage(List<T> content, Pageable pageable, Supplier<JPAQuery<?>> countQuery) {
+        long limit = pageable.isPaged()
+                ? Math.max(estimateCap, pageable.getOffset() + pageable.getPageSize())
+                : estimateCap;
+        long[] counted = {-1};
+        Page<T> page = PageableExecutionUtils.getPage(content, pageable,
+                () -> counted[0] = queryMetrics.timeCount(() -> countQuery.get().select(ONE).limit(limit + 1).fetch().size()));
+        if (counted[0] > limit) {
+            return new CappedPage<>(content, pageable, limit, true);
+        }
+        return new CappedPage<>(content, pageable, page.getTotalElements(), false);
+    }
+
+    /**
+     * count 는 비동기 작업과 요청 스레드 중 먼저 claimed 를 가져간 쪽이 한 번만 실행한다.
+     * 비동기 작업은 트랜잭션을 열기 전에 claimed 를 확인하므로 요청 스레드가 먼저 가져가면 커넥션을 잡지 않는다.
+     * 쓰기 트랜잭션 안에서는 다른 트랜잭션이 커밋되지 않은 변경을 볼 수 없으므로 동시에 실행하지 않는다.
+     */
+    private <T> Page<T> parallelPage(Supplier<List<T>> content, Pageable pageable, Supplier<JPAQuery<?>> countQuery) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        LongSupplier count = queryMetrics.timeParallelCount(() -> countQuery.get().fetchCount());
+        Optional<CompletableFuture<Long>> submitted = inReadWriteTransaction()
+                ? Optional.empty()
+                : asyncQueryExecutor.trySubmit(() -> claimed.compareAndSet(false, true), count::getAsLong);
+        if (submitted.isEmpty()) {
+            return getPage(content.get(), pageable, CountMode.EXACT, null, countQuery);
+        }
+        CompletableFuture<Long> total = submitted.get();
+        try {
+            return PageableExecutionUtils.getPage(content.get(), pageable, () -> claimed.compareAndSet(false, true)
+                    ? queryMetrics.timeCount(() -> countQuery.get().fetchCount())
+                    : AsyncQueryExecutor.join(total));
+        } finally {
+            claimed.set(true);
+            total.cancel(false);
+        }
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private record CountKey(Object key, long version) {
+    }
+}
@@ -0,0 +1,163 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 같은 조건으로 페이지를 차례로 읽을 때 다음 페이지를 미리 읽어 둔다 (querydsl.prefetch.*). 기본은 꺼져 있다.
+ * <p>
+ * (조건, 페이지 크기, 정렬, count 방식)마다 마지막으로 응답한 페이지와 미리 읽는 중인 페이지 하나만 기억한다.
+ * 0 페이지이거나 직전 응답이 k - 1 페이지였을 때만 k 페이지 응답 후 k + 1 페이지를 AsyncQueryExecutor 로 읽는다.
+ * 다른 페이지가 요청되거나 member/team 버전이 바뀌면 미리 읽은 결과는 버린다.
+ * 이미 DB 에서 실행 중인 쿼리는 멈추지 않고 결과만 버린다.
+ * <p>
+ * repository.prefetch 카운터: hit(미리 읽은 결과로 응답), miss(미리 읽은 결과 없이 조회), discarded(쓰지 못하고 버림)
+ */
+@Component
+public class PagePrefetcher {
+
+    private final TableVersionTracker versionTracker;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final boolean enabled;
+    private final String[] tables;
+    private final Cache<StreamKey, Readahead> streams;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter discarded;
+
+    public PagePrefetcher(TableVersionTracker versionTracker, AsyncQueryExecutor asyncQueryExecutor, MeterRegistry registry,
+                          @Value("${querydsl.prefetch.enabled:false}") boolean enabled,
+                          @Value("${querydsl.prefetch.maximum-size:1000}") long maximumSize,
+                          @Value("${querydsl.prefetch.ttl:30s}") Duration ttl,
+                          @Value("${querydsl.prefetch.tables:member,team}") String[] tables) {
+        this.versionTracker = versionTracker;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.enabled = enabled;
+        this.tables = tables;
+        this.hits = Counter.builder("repository.prefetch").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("repository.prefetch").tag("result", "miss").register(registry);
+        this.discarded = Counter.builder("repository.prefetch").tag("result", "discarded").register(registry);
+        this.streams = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(ttl)
+                .removalListener((StreamKey key, Readahead readahead, RemovalCause cause) -> {
+                    if (readahead != null) {
+                        readahead.discard();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 미리 읽은 pageable 페이지가 있으면 그 결과를, 없으면 loader 결과를 돌려준다.
+     * loader 는 다음 페이지를 읽을 때도 쓰이며 다른 스레드에서 실행된다.
+     *
+     * @param key 정규화된 조건과 count 방식처럼 페이지 번호 외에 결과를 결정하는 값
+     */
+    public <T> Page<T> get(Object key, Pageable pageable, Function<Pageable, Page<T>> loader) {
+        if (!enabled || pageable.isUnpaged() || inReadWriteTransaction()) {
+            return loader.apply(pageable);
+        }
+        StreamKey streamKey = new StreamKey(key, pageable.getPageSize(), pageable.getSort());
+        Readahead readahead = streams.get(streamKey, k -> new Readahead());
+        long version = versionTracker.version(tables);
+
+        CompletableFuture<Page<T>> prefetched = readahead.take(pageable.getPageNumber(), version);
+        Page<T> page = null;
+        if (prefetched != null) {
+            try {
+                page = AsyncQueryExecutor.join(prefetched);
+                hits.increment();
+            } catch (RuntimeException e) {
+                // 미리 읽기가 실패하면 직접 조회한다.
+                discarded.increment();
+            }
+        }
+        if (page == null) {
+            misses.increment();
+            page = loader.apply(pageable);
+        }
+
+        if (readahead.served(pageable.getPageNumber()) && page.hasNext()) {
+            Pageable next = pageable.next();
+            asyncQueryExecutor.trySubmit(() -> loader.apply(next))
+                    .ifPresent(future -> readahead.prefetch(next.getPageNumber(), version, future));
+        }
+        return page;
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private record StreamKey(Object key, int pageSize, Sort sort) {
+    }
+
+    private class Readahead {
+
+        private int lastPage = -1;
+        private int page = -1;
+        private long version;
+        private CompletableFuture<?> future;
+
+        /**
+         * 요청한 페이지를 같은 버전으로 미리 읽어 두었으면 꺼내고, 아니면 미리 읽은 결과를 버린다.
+         */
+        @SuppressWarnings("unchecked")
+        synchronized <T> CompletableFuture<Page<T>> take(int pageNumber, long currentVersion) {
+            if (future == null) {
+                return null;
+            }
+            CompletableFuture<?> taken = future;
+            future = null;
+            if (page == pageNumber && version == currentVersion) {
+                return (CompletableFuture<Page<T>>) taken;
+            }
+            taken.cancel(false);
+            discarded.increment();
+            return null;
+        }
+
+        /**
+         * 응답한 페이지를 기록하고 순차 접근이면 true 를 돌려준다.
+         */
+        synchronized boolean served(int pageNumber) {
+            boolean sequential = pageNumber == 0 || pageNumber == lastPage + 1;
+            lastPage = pageNumber;
+            return sequential && future == null;
+        }
+
+        synchronized void prefetch(int pageNumber, long prefetchVersion, CompletableFuture<?> prefetched) {
+            if (future != null) {
+                prefetched.cancel(false);
+                return;
+            }
+            page = pageNumber;
+            version = prefetchVersion;
+            future = prefetched;
+        }
+
+        synchronized void discard() {
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+                discarded.increment();
+            }
+        }
+    }
+}
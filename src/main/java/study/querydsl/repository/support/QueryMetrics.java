@@ -0,0 +1,183 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 레포지토리 쿼리 계측.
+ * <ul>
+ *     <li>repository.query (timer, p50/p99 + histogram) : method, shape, phase(total/content/count) 태그</li>
+ *     <li>repository.query.rows (summary) : method 태그</li>
+ * </ul>
+ * 최근 실행 내역은 고정 크기 링 버퍼에 남겨 /actuator/querysamples 로 덤프한다.
+ * content 시간은 total 에서 같은 스레드에서 실행된 count 시간을 뺀 값이다.
+ */
+@Component
+public class QueryMetrics {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<QuerySample> samples;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public QueryMetrics(MeterRegistry registry,
+                        @Value("${querydsl.metrics.sample-buffer-size:1024}") int sampleBufferSize) {
+        this.registry = registry;
+        this.samples = new AtomicReferenceArray<>(sampleBufferSize);
+    }
+
+    public <T> T record(String method, String shape, Supplier<T> query) {
+        return record(method, shape, query, QueryMetrics::rows);
+    }
+
+    /**
+     * @param rows 결과의 행 수. 음수면 기록하지 않는다. (여러 페이지를 한 번에 돌려주는 경우처럼 결과 크기가 행 수가 아닐 때)
+     */
+    public <T> T record(String method, String shape, Supplier<T> query, ToLongFunction<? super T> rows) {
+        Trace outer = CURRENT.get();
+        Trace trace = new Trace();
+        CURRENT.set(trace);
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            result = query.get();
+            return result;
+        } finally {
+            long total = System.nanoTime() - start;
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+            long count = trace.countNanos.get();
+            long content = trace.parallelCount ? total : total - count;
+            timer(method, shape, "total").record(total, TimeUnit.NANOSECONDS);
+            timer(method, shape, "content").record(content, TimeUnit.NANOSECONDS);
+            if (trace.countExecuted) {
+                timer(method, shape, "count").record(count, TimeUnit.NANOSECONDS);
+            }
+            long rowCount = result == null ? -1 : rows.applyAsLong(result);
+            if (rowCount >= 0) {
+                rowSummaries.computeIfAbsent(method, m -> DistributionSummary.builder("repository.query.rows")
+                        .tag("method", m)
+                        .register(registry))
+                        .record(rowCount);
+            }
+            long index = sequence.getAndIncrement();
+            samples.set((int) (index % samples.length()), new QuerySample(System.currentTimeMillis(), method, shape,
+                    TimeUnit.NANOSECONDS.toMicros(total), TimeUnit.NANOSECONDS.toMicros(content),
+                    trace.countExecuted ? TimeUnit.NANOSECONDS.toMicros(count) : -1, rowCount));
+        }
+    }
+
+    /**
+     * 현재 스레드에서 record() 로 계측 중인 쿼리의 count 시간으로 기록한다.
+     */
+    public long timeCount(LongSupplier count) {
+        Trace trace = CURRENT.get();
+        long start = System.nanoTime();
+        try {
+            return count.getAsLong();
+        } finally {
+            if (trace != null) {
+                trace.addCount(System.nanoTime() - start, false);
+            }
+        }
+    }
+
+    /**
+     * 다른 스레드에서 실행될 count 를 감싼다. 호출한 시점에 계측 중인 쿼리에 기록된다.
+     */
+    public LongSupplier timeParallelCount(LongSupplier count) {
+        Trace trace = CURRENT.get();
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                return count.getAsLong();
+            } finally {
+                if (trace != null) {
+                    trace.addCount(System.nanoTime() - start, true);
+                }
+            }
+        };
+    }
+
+    /**
+     * 최근 실행 내역. 오래된 것부터.
+     */
+    public List<QuerySample> recentSamples() {
+        long end = sequence.get();
+        long start = Math.max(0, end - samples.length());
+        List<QuerySample> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            QuerySample sample = samples.get((int) (i % samples.length()));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    private Timer timer(String method, String shape, String phase) {
+        return timers.computeIfAbsent(new TimerKey(method, shape, phase), key -> Timer.builder("repository.query")
+                .tag("method", key.method())
+                .tag("shape", key.shape())
+                .tag("phase", key.phase())
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Number number) {
+            return number.longValue();
+        }
+        return -1;
+    }
+
+    public record QuerySample(long timestamp, String method, String shape,
+                              long totalMicros, long contentMicros, long countMicros, long rows) {
+    }
+
+    private record TimerKey(String method, String shape, String phase) {
+    }
+
+    private static class Trace {
+        private final AtomicLong countNanos = new AtomicLong();
+        private volatile boolean countExecuted;
+        private volatile boolean parallelCount;
+
+        void addCount(long nanos, boolean parallel) {
+            countNanos.addAndGet(nanos);
+            countExecuted = true;
+            if (parallel) {
+                parallelCount = true;
+            }
+        }
+    }
+}
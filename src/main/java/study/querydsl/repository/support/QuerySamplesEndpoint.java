@@ -0,0 +1,24 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/querysamples : 최근 레포지토리 쿼리 실행 내역
+ */
+@Component
+@Endpoint(id = "querysamples")
+@RequiredArgsConstructor
+public class QuerySamplesEndpoint {
+
+    private final QueryMetrics queryMetrics;
+
+    @ReadOperation
+    public List<QueryMetrics.QuerySample> samples() {
+        return queryMetrics.recentSamples();
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.jpa.JPAProvider;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * 동적 검색 조건의 조합(shape)별로 Querydsl 이 만든 JPQL 을 캐시한다.
+ * 조건마다 값이 있는지를 비트로 모은 shape 가 처음 나오면 Querydsl 쿼리를 한 번 만들어 직렬화해 두고,
+ * 이후 같은 shape 는 캐시한 JPQL 에 파라미터 값만 바인딩하므로 표현식 트리 생성과 직렬화가 일어나지 않는다.
+ * 조건식은 Querydsl 쪽 하나만 있으므로 count 등 다른 쿼리와 조건이 어긋나지 않는다.
+ * <p>
+ * parameters 는 query 의 where 에 나오는 순서대로, 조건을 적용하지 않을 때는 null 을 돌려줘야 한다.
+ * 처음 직렬화할 때 Querydsl 이 만든 파라미터와 비교해 다르면 IllegalStateException 을 던진다.
+ *
+ * @param <C> 검색 조건 타입
+ * @param <T> 결과 타입
+ */
+public class QueryShapeCache<C, T> {
+
+    private static final int MAX_PARAMETERS = 10;
+
+    private final EntityManager em;
+    private final FactoryExpression<T> projection;
+    private final Function<C, JPAQuery<?>> query;
+    private final List<Function<C, Object>> parameters;
+    private final AtomicReferenceArray<String> jpql;
+
+    /**
+     * @param query 검색 조건으로 select 절을 뺀 Querydsl 쿼리(from, join, where)를 만든다
+     */
+    public QueryShapeCache(EntityManager em, FactoryExpression<T> projection,
+                           Function<C, JPAQuery<?>> query, List<Function<C, Object>> parameters) {
+        Assert.isTrue(parameters.size() <= MAX_PARAMETERS, "Too many parameters: " + parameters.size());
+        this.em = em;
+        this.projection = projection;
+        this.query = query;
+        this.parameters = List.copyOf(parameters);
+        this.jpql = new AtomicReferenceArray<>(1 << parameters.size());
+    }
+
+    public List<T> fetch(C cond) {
+        return fetch(cond, 0, -1);
+    }
+
+    /**
+     * @param limit 음수이면 제한하지 않는다
+     * @throws ArithmeticException offset 이 int 범위를 넘는 경우 (JPA 는 int offset 만 지원한다)
+     */
+    public List<T> fetch(C cond, long offset, int limit) {
+        List<Object> values = new ArrayList<>(parameters.size());
+        int shape = 0;
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i).apply(cond);
+            if (value != null) {
+                values.add(value);
+                shape |= 1 << i;
+            }
+        }
+
+        Query jpaQuery = em.createQuery(jpql(shape, cond, values));
+        for (int i = 0; i < values.size(); i++) {
+            jpaQuery.setParameter(i + 1, values.get(i));
+        }
+        if (offset > 0) {
+            jpaQuery.setFirstResult(Math.toIntExact(offset));
+        }
+        if (limit >= 0) {
+            jpaQuery.setMaxResults(limit);
+        }
+
+        List<?> rows = jpaQuery.getResultList();
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance(row instanceof Object[] args ? args : new Object[]{row}));
+        }
+        return result;
+    }
+
+    private String jpql(int shape, C cond, List<Object> values) {
+        String cached = jpql.get(shape);
+        if (cached != null) {
+            return cached;
+        }
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.apply(cond).select(projection).getMetadata(), false, null);
+        List<Object> constants = serializer.getConstants();
+        if (!constants.equals(values)) {
+            throw new IllegalStateException("Query parameters " + constants + " do not match condition values " + values);
+        }
+        String serialized = serializer.toString();
+        jpql.compareAndSet(shape, null, serialized);
+        return serialized;
+    }
+}
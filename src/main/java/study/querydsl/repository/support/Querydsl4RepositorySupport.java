@@ -29,14 +29,22 @@ import java.util.function.Function;
  */
 @Repository
 public abstract class Querydsl4RepositorySupport {
+    private static final String NO_SHAPE = "n/a";
     private final Class domainClass;
+    /**
+     * 메서드 이름을 받지 않는 applyPagination 의 계측 태그
+     */
+    private final String defaultMethod;
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private PageCounter pageCounter;
+    private QueryMetrics queryMetrics;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
+        this.defaultMethod = getClass().getSimpleName() + ".applyPagination";
     }
 
     @Autowired
@@ -53,11 +61,23 @@ public abstract class Querydsl4RepositorySupport {
 
     }
 
+    @Autowired
+    public void setPageCounter(PageCounter pageCounter) {
+        this.pageCounter = pageCounter;
+    }
+
+    @Autowired
+    public void setQueryMetrics(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(pageCounter, "PageCounter must not be null!");
+        Assert.notNull(queryMetrics, "QueryMetrics must not be null!");
     }
 
     protected JPAQueryFactory getQueryFactory() {
@@ -82,19 +102,63 @@ public abstract class Querydsl4RepositorySupport {
 
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
-        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
-        return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+        return applyPagination(defaultMethod, pageable, contentQuery);
     }
 
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
-        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
-        return PageableExecutionUtils.getPage(content, pageable,
-                countResult::fetchCount);
+        return applyPagination(defaultMethod, pageable, contentQuery, countQuery);
+    }
+
+    /**
+     * @param method 계측 태그로 쓸 레포지토리 메서드 이름
+     */
+    protected <T> Page<T> applyPagination(String method, Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return queryMetrics.record(method, NO_SHAPE, () -> {
+            JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable,
+                    jpaQuery).fetch();
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> queryMetrics.timeCount(jpaQuery::fetchCount));
+        });
+    }
+
+    protected <T> Page<T> applyPagination(String method, Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                          Function<JPAQueryFactory, JPAQuery> countQuery) {
+        return queryMetrics.record(method, NO_SHAPE, () -> {
+            JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+            List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
+            JPAQuery countResult = countQuery.apply(getQueryFactory());
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> queryMetrics.timeCount(countResult::fetchCount));
+        });
+    }
+
+    /**
+     * countMode 에 따라 total 을 구한다. 모드별 동작은 {@link CountMode}, {@link PageCounter} 참고.
+     *
+     * @param countKey CACHED 모드의 캐시 키. 메서드 이름과 정규화된 검색 조건처럼 equals/hashCode 가 정의된 값이어야 한다.
+     *                 다른 모드에서는 쓰지 않는다.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> Page<T> applyPagination(String method, Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                          Function<JPAQueryFactory, JPAQuery> countQuery, CountMode countMode, Object countKey) {
+        Assert.isTrue(countMode != CountMode.CACHED || countKey != null, "countKey is required for CACHED count");
+        return queryMetrics.record(method, NO_SHAPE, () -> pageCounter.getPage(
+                () -> (List<T>) getQuerydsl().applyPagination(pageable, contentQuery.apply(getQueryFactory())).fetch(),
+                pageable, countMode, countKey, () -> countQuery.apply(getQueryFactory())));
+    }
+
+    /**
+     * count 쿼리를 content 쿼리와 동시에 별도 읽기 전용 트랜잭션에서 실행한다. ({@link CountMode#PARALLEL})
+     * count 가 필요 없는 경우(PageableExecutionUtils 가 생략하는 경우) count 는 실행되지 않는다.
+     * 별도 트랜잭션이므로 쓰기 트랜잭션 안에서는 동시에 실행하지 않는다.
+     *
+     * @see PageCounter
+     */
+    protected <T> Page<T> applyPaginationParallel(String method, Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                  Function<JPAQueryFactory, JPAQuery> countQuery) {
+        return applyPagination(method, pageable, contentQuery, countQuery, CountMode.PARALLEL, null);
     }
 }
@@ -0,0 +1,82 @@
+package study.querydsl.repository.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 검색 결과 캐시 (querydsl.result-cache.*). 기본은 꺼져 있다.
+ * 키에 대상 테이블의 데이터 버전을 함께 넣으므로 member/team 에 쓰기(벌크 execute() 포함)가 일어나는 순간
+ * 이전 항목은 더 이상 조회되지 않고 크기/TTL 제한으로 정리된다.
+ * <p>
+ * 캐시된 결과 객체는 여러 요청이 공유하므로 호출한 쪽에서 수정하면 안 된다.
+ * 쓰기 트랜잭션 안에서는 커밋되지 않은 변경이 보여야 하므로 캐시를 거치지 않는다.
+ *
+ * @see TableWriteListener
+ */
+@Component
+public class SearchResultCache {
+
+    private final TableVersionTracker versionTracker;
+    private final boolean enabled;
+    private final String[] tables;
+    private final Cache<CacheKey, Object> cache;
+
+    public SearchResultCache(TableVersionTracker versionTracker,
+                             @Value("${querydsl.result-cache.enabled:false}") boolean enabled,
+                             @Value("${querydsl.result-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${querydsl.result-cache.ttl:60s}") Duration ttl,
+                             @Value("${querydsl.result-cache.tables:member,team}") String[] tables) {
+        this.versionTracker = versionTracker;
+        this.enabled = enabled;
+        this.tables = tables;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Supplier<T> loader) {
+        if (!enabled || inReadWriteTransaction()) {
+            return loader.get();
+        }
+        CacheKey cacheKey = new CacheKey(key, versionTracker.version(tables));
+        Object cached = cache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T result = loader.get();
+        if (result != null) {
+            cache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private record CacheKey(Object key, long version) {
+    }
+}
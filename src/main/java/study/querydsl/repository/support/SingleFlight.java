@@ -0,0 +1,93 @@
+package study.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 조회가 동시에 들어오면 먼저 온 요청 하나만 실행하고 나머지는 그 결과를 함께 받는다.
+ * 결과 객체는 대기하던 요청들이 공유하므로 호출한 쪽에서 수정하면 안 된다.
+ * 먼저 온 요청이 실패하면 기다리던 요청들도 같은 예외(RuntimeException, Error)를 그대로 받는다.
+ * <p>
+ * 기다리는 요청은 timeout 까지만 기다리고 {@link QueryTimeoutException} 을 던진다. 실행 중인 조회는 취소하지 않는다.
+ * <p>
+ * 쓰기 트랜잭션 안에서는 자기 트랜잭션의 커밋되지 않은 변경이 보여야 하므로 합치지 않고 바로 실행한다.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final long timeoutNanos;
+
+    public SingleFlight(@Value("${querydsl.single-flight.timeout:30s}") Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> call) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return call.get();
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(key, existing);
+        }
+
+        executed.increment();
+        try {
+            T result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object await(Object key, CompletableFuture<Object> leader) {
+        try {
+            return leader.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Timed out waiting for in-flight query " + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight query " + key, e);
+        }
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+}
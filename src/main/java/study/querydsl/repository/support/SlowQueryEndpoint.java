@@ -0,0 +1,32 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/slowqueries : 가장 느린 SQL 목록 (바인딩 값, EXPLAIN 포함). DELETE 로 비운다.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@ConditionalOnProperty(prefix = "querydsl.slow-query", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public List<SlowQueryLog.SlowQueryView> slowQueries() {
+        return slowQueryLog.worstQueries();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
@@ -0,0 +1,221 @@
+package study.querydsl.repository.support;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 로 실행 시간을 재서 threshold 이상 걸린 SQL 중 가장 느린 top-n 개를 바인딩 값과 함께 보관한다.
+ * 같은 SQL 은 가장 느렸던 실행 하나만 남기고 횟수를 센다. sample-rate 로 느린 쿼리 중 일부만 기록할 수 있다.
+ * <p>
+ * explain=true 이면 새로 들어온 select 에 별도 스레드에서 EXPLAIN 결과를 붙인다.
+ * 값이 문자열로 들어간 SQL 이 아니라 원래의 파라미터 SQL 을 PreparedStatement 로 실행하고 값은 바인딩한다.
+ * 바인딩 값은 스레드마다 마지막으로 값을 설정한 PreparedStatement 것만 기억한다.
+ * <p>
+ * 전체 SQL 로그(decorator.datasource.p6spy.enable-logging)와 독립적으로 동작하므로 로그를 끈 상태에서도 쓸 수 있다.
+ *
+ * @see SlowQueryEndpoint
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "querydsl.slow-query", name = "enabled", havingValue = "true")
+public class SlowQueryLog extends JdbcEventListener implements DisposableBean {
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int topN;
+    private final boolean explain;
+    private final Map<String, SlowQuery> worst = new HashMap<>();
+    private final ExecutorService explainExecutor;
+    private final ThreadLocal<BoundParameters> boundParameters = new ThreadLocal<>();
+
+    public SlowQueryLog(ObjectProvider<DataSource> dataSource,
+                        @Value("${querydsl.slow-query.threshold:100ms}") Duration threshold,
+                        @Value("${querydsl.slow-query.sample-rate:1.0}") double sampleRate,
+                        @Value("${querydsl.slow-query.top-n:50}") int topN,
+                        @Value("${querydsl.slow-query.explain:false}") boolean explain) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.topN = topN;
+        this.explain = explain;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(topN), new CustomizableThreadFactory("slow-query-explain-"),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex,
+                                            Object value, SQLException e) {
+        if (!explain) {
+            return;
+        }
+        BoundParameters parameters = boundParameters.get();
+        if (parameters == null || parameters.statement != statementInformation) {
+            parameters = new BoundParameters(statementInformation);
+            boundParameters.set(parameters);
+        }
+        parameters.set(parameterIndex, value);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        SqlStatement.Kind kind = SqlStatement.parse(sql).kind();
+        if (kind == SqlStatement.Kind.EXPLAIN) {
+            return;
+        }
+        record(sql, kind == SqlStatement.Kind.SELECT, statementInformation.getSqlWithValues(),
+                parameters(statementInformation), timeElapsedNanos);
+    }
+
+    private List<Object> parameters(StatementInformation statementInformation) {
+        BoundParameters parameters = boundParameters.get();
+        if (parameters == null || parameters.statement != statementInformation) {
+            return List.of();
+        }
+        return new ArrayList<>(parameters.values);
+    }
+
+    private void record(String sql, boolean select, String sqlWithValues, List<Object> parameters, long elapsedNanos) {
+        SlowQuery added = null;
+        synchronized (worst) {
+            SlowQuery existing = worst.get(sql);
+            if (existing != null) {
+                existing.count++;
+                if (elapsedNanos <= existing.elapsedNanos) {
+                    return;
+                }
+            } else if (worst.size() >= topN) {
+                SlowQuery fastest = worst.values().stream()
+                        .min(Comparator.comparingLong(query -> query.elapsedNanos))
+                        .orElseThrow();
+                if (elapsedNanos <= fastest.elapsedNanos) {
+                    return;
+                }
+                worst.remove(fastest.sql);
+            }
+            added = new SlowQuery(sql, sqlWithValues, elapsedNanos, existing == null ? 1 : existing.count);
+            worst.put(sql, added);
+        }
+        log.debug("slow query {} ms : {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sqlWithValues);
+        if (explain && select) {
+            SlowQuery target = added;
+            explainExecutor.execute(() -> target.plan = explain(target.sql, parameters));
+        }
+    }
+
+    private String explain(String sql, List<Object> parameters) {
+        try (Connection connection = dataSource.getObject().getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        } catch (SQLException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 느린 순서
+     */
+    public List<SlowQueryView> worstQueries() {
+        List<SlowQueryView> result = new ArrayList<>();
+        synchronized (worst) {
+            for (SlowQuery query : worst.values()) {
+                result.add(new SlowQueryView(query.sqlWithValues, TimeUnit.NANOSECONDS.toMillis(query.elapsedNanos),
+                        query.count, query.capturedAt, query.plan));
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowQueryView::elapsedMillis).reversed());
+        return result;
+    }
+
+    public void clear() {
+        synchronized (worst) {
+            worst.clear();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    public record SlowQueryView(String sql, long elapsedMillis, long count, Instant capturedAt, String plan) {
+    }
+
+    private static class BoundParameters {
+        private final PreparedStatementInformation statement;
+        private final List<Object> values = new ArrayList<>();
+
+        BoundParameters(PreparedStatementInformation statement) {
+            this.statement = statement;
+        }
+
+        void set(int parameterIndex, Object value) {
+            while (values.size() < parameterIndex) {
+                values.add(null);
+            }
+            values.set(parameterIndex - 1, value);
+        }
+    }
+
+    private static class SlowQuery {
+        private final String sql;
+        private final String sqlWithValues;
+        private final long elapsedNanos;
+        private final Instant capturedAt = Instant.now();
+        private long count;
+        private volatile String plan;
+
+        SlowQuery(String sql, String sqlWithValues, long elapsedNanos, long count) {
+            this.sql = sql;
+            this.sqlWithValues = sqlWithValues;
+            this.elapsedNanos = elapsedNanos;
+            this.count = count;
+        }
+    }
+}
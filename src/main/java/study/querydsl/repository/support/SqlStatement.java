@@ -0,0 +1,55 @@
+package study.querydsl.repository.support;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 한 문장의 종류와 대상 테이블. 앞쪽 주석(use_sql_comments)은 건너뛴다.
+ * <p>
+ * 엔티티 하나를 저장할 때 Hibernate 가 만드는 SQL 은 "update member set a=?,b=? where member_id=?",
+ * "delete from member where member_id=?" 처럼 별칭과 식 없이 식별자로만 찾는다.
+ * 벌크 JPQL(update(member)...execute())은 별칭(m1_0)이나 식이 들어가므로 {@link Kind#BULK_WRITE} 로 구분된다.
+ *
+ * @param table 쓰기 대상 테이블 (스키마를 뗀 소문자). 쓰기가 아니면 null
+ */
+public record SqlStatement(Kind kind, String table, String sql) {
+
+    public enum Kind {
+        SELECT, ENTITY_WRITE, BULK_WRITE, EXPLAIN, OTHER
+    }
+
+    private static final String LEADING_COMMENTS = "\\s*(?:/\\*.*?\\*/\\s*)*";
+
+    private static final Pattern STATEMENT = Pattern.compile(
+            LEADING_COMMENTS + "(?:(select|explain)\\b|(insert\\s+into|update|delete\\s+from|delete|merge\\s+into)\\s+([\\w.]+))",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern ENTITY_WRITE = Pattern.compile(
+            LEADING_COMMENTS + "(?:"
+                    + "update\\s+[\\w.]+\\s+set\\s+\\w+=\\?(?:,\\w+=\\?)*\\s+where\\s+\\w+=\\?(?:\\s+and\\s+\\w+=\\?)*"
+                    + "|delete\\s+from\\s+[\\w.]+\\s+where\\s+\\w+=\\?(?:\\s+and\\s+\\w+=\\?)*"
+                    + "|insert\\s+into\\s+[\\w.]+\\s*\\([\\w,\\s]*\\)\\s*values\\s*\\([?,\\s]*\\)"
+                    + "|merge\\s+into\\s+.*"
+                    + ")\\s*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    public static SqlStatement parse(String sql) {
+        Matcher matcher = STATEMENT.matcher(sql);
+        if (!matcher.lookingAt()) {
+            return new SqlStatement(Kind.OTHER, null, sql);
+        }
+        if (matcher.group(1) != null) {
+            Kind kind = matcher.group(1).equalsIgnoreCase("select") ? Kind.SELECT : Kind.EXPLAIN;
+            return new SqlStatement(kind, null, sql);
+        }
+        String table = matcher.group(3);
+        table = table.substring(table.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        Kind kind = ENTITY_WRITE.matcher(sql).matches() ? Kind.ENTITY_WRITE : Kind.BULK_WRITE;
+        return new SqlStatement(kind, table, sql);
+    }
+
+    public boolean isWrite() {
+        return kind == Kind.ENTITY_WRITE || kind == Kind.BULK_WRITE;
+    }
+}
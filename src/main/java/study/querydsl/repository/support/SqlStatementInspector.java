@@ -0,0 +1,34 @@
+package study.querydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hibernate 가 실행하는 모든 SQL 을 한 번만 분류({@link SqlStatement#parse})해서 등록된 {@link SqlStatementListener} 빈에 넘긴다.
+ * SQL 은 바꾸지 않는다.
+ *
+ * @see study.querydsl.config.HibernateConfig
+ */
+@Component
+public class SqlStatementInspector implements StatementInspector {
+
+    private final List<SqlStatementListener> listeners;
+
+    public SqlStatementInspector(List<SqlStatementListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (listeners.isEmpty()) {
+            return sql;
+        }
+        SqlStatement statement = SqlStatement.parse(sql);
+        for (SqlStatementListener listener : listeners) {
+            listener.onStatement(statement);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.repository.support;
+
+/**
+ * {@link SqlStatementInspector} 가 분류한 SQL 을 받는다. Hibernate 가 SQL 을 준비하는 스레드에서 호출되므로 가볍게 처리해야 한다.
+ */
+public interface SqlStatementListener {
+
+    void onStatement(SqlStatement statement);
+}
@@ -0,0 +1,49 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 테이블별 데이터 버전. 쓰기가 일어날 때마다 증가하며 캐시 키에 포함시켜 쓰기 이후의 캐시 항목을 무효화한다.
+ *
+ * @see TableWriteListener
+ */
+@Component
+public class TableVersionTracker {
+
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong global = new AtomicLong();
+    private final long epoch = System.currentTimeMillis();
+
+    /**
+     * 버전은 메모리에만 있어 재시작하면 0 부터 다시 센다. 프로세스 밖으로 나가는 값(ETag 등)에는 이 값을 함께 넣는다.
+     */
+    public long epoch() {
+        return epoch;
+    }
+
+    public long version() {
+        return global.get();
+    }
+
+    public long version(String... tables) {
+        long sum = 0;
+        for (String table : tables) {
+            sum += counter(table).get();
+        }
+        return sum;
+    }
+
+    public void bump(String table) {
+        counter(table).incrementAndGet();
+        global.incrementAndGet();
+    }
+
+    private AtomicLong counter(String table) {
+        return versions.computeIfAbsent(table.toLowerCase(Locale.ROOT), t -> new AtomicLong());
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hibernate 가 실행하는 모든 SQL 을 보고 insert/update/delete 대상 테이블의 버전을 올린다.
+ * persist/merge 뿐 아니라 영속성 컨텍스트를 거치지 않는 update(member)...execute() 같은 벌크 연산도 잡힌다.
+ * 커밋 전에 다른 트랜잭션이 옛 데이터를 새 버전으로 캐시하지 않도록 트랜잭션 완료 시점에 한 번 더 올린다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TableWriteListener implements SqlStatementListener {
+
+    private final TableVersionTracker versionTracker;
+
+    @Override
+    public void onStatement(SqlStatement statement) {
+        if (statement.isWrite()) {
+            onWrite(statement.table());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onWrite(String table) {
+        versionTracker.bump(table);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<String> pending = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<String> tables = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, tables);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TableWriteListener.this);
+                    tables.forEach(versionTracker::bump);
+                }
+            });
+            pending = tables;
+        }
+        pending.add(table);
+    }
+}
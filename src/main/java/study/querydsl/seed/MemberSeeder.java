@@ -0,0 +1,146 @@
+package study.querydsl.seed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * seed.enabled=true 일 때 기동 시 대량의 Team/Member 를 적재한다.
+ * batch-size 마다 JDBC batch 로 flush 하고 영속성 컨텍스트를 비우며, commit-size 마다 커밋한다.
+ * 적재한 member 를 2차 캐시에 넣지 않는다. (CacheMode.IGNORE)
+ * member 는 partitions 개의 구간으로 나눠 구간마다 별도 스레드/트랜잭션에서 적재한다.
+ * local 프로필에서는 application-local.yml 의 작은 설정으로 예제 데이터를 만든다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "seed", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SeedProperties.class)
+public class MemberSeeder implements ApplicationRunner {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final SeedProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberSeeder(SeedProperties properties, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        seed();
+    }
+
+    public long seed() throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        List<Long> teamIds = transactionTemplate.execute(status -> seedTeams());
+
+        int partitions = properties.getPartitions();
+        long members = properties.getMembers();
+        long partitionSize = (members + partitions - 1) / partitions;
+
+        ExecutorService executor = Executors.newFixedThreadPool(partitions, new CustomizableThreadFactory("seed-"));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                long from = p * partitionSize;
+                long to = Math.min(members, from + partitionSize);
+                int partition = p;
+                futures.add(executor.submit(() -> seedMembers(partition, from, to, teamIds)));
+            }
+            long rows = 0;
+            for (Future<Long> future : futures) {
+                rows += future.get();
+            }
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            log.info("seeded {} teams, {} members in {} s ({} rows/sec, partitions={}, batchSize={})",
+                    teamIds.size(), rows, String.format("%.1f", seconds), Math.round(rows / seconds),
+                    partitions, properties.getBatchSize());
+            return rows;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> seedTeams() {
+        List<Long> teamIds = new ArrayList<>(properties.getTeams());
+        for (int i = 0; i < properties.getTeams(); i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teamIds.add(team.getId());
+        }
+        return teamIds;
+    }
+
+    private long seedMembers(int partition, long from, long to, List<Long> teamIds) {
+        SplittableRandom random = new SplittableRandom(properties.getRandomSeed() + partition);
+        long partitionStart = System.nanoTime();
+        for (long commitFrom = from; commitFrom < to; commitFrom += properties.getCommitSize()) {
+            long chunkFrom = commitFrom;
+            long chunkTo = Math.min(to, commitFrom + properties.getCommitSize());
+            transactionTemplate.executeWithoutResult(status -> {
+                Session session = em.unwrap(Session.class);
+                session.setJdbcBatchSize(properties.getBatchSize());
+                session.setCacheMode(CacheMode.IGNORE);
+                for (long i = chunkFrom; i < chunkTo; i++) {
+                    Member member = new Member("member" + i, nextAge(random));
+                    if (!teamIds.isEmpty()) {
+                        member.setTeam(em.getReference(Team.class, teamIds.get((int) (i % teamIds.size()))));
+                    }
+                    em.persist(member);
+                    if ((i - chunkFrom + 1) % properties.getBatchSize() == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                em.flush();
+                em.clear();
+            });
+            log.debug("seed partition {} : {}/{} rows", partition, chunkTo - from, to - from);
+        }
+        double seconds = (System.nanoTime() - partitionStart) / 1_000_000_000.0;
+        log.info("seed partition {} done : {} rows ({} rows/sec)", partition, to - from, Math.round((to - from) / seconds));
+        return to - from;
+    }
+
+    private int nextAge(SplittableRandom random) {
+        int min = properties.getMinAge();
+        int max = properties.getMaxAge();
+        if (properties.getAgeDistribution() == SeedProperties.AgeDistribution.NORMAL) {
+            double mean = (min + max) / 2.0;
+            double stddev = (max - min) / 6.0;
+            double age = mean + stddev * gaussian(random);
+            return (int) Math.max(min, Math.min(max, Math.round(age)));
+        }
+        return random.nextInt(min, max + 1);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
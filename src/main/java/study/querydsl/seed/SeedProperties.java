@@ -0,0 +1,63 @@
+package study.querydsl.seed;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * 부하 테스트용 대량 데이터 설정 (seed.*)
+ */
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "seed")
+public class SeedProperties {
+
+    public enum AgeDistribution {
+        UNIFORM, NORMAL
+    }
+
+    private boolean enabled = false;
+
+    @PositiveOrZero
+    private long members = 1_000_000;
+
+    @PositiveOrZero
+    private int teams = 100;
+
+    @PositiveOrZero
+    private int minAge = 0;
+
+    private int maxAge = 99;
+
+    private AgeDistribution ageDistribution = AgeDistribution.UNIFORM;
+
+    /**
+     * JDBC batch 크기. 이 건수마다 flush/clear 한다.
+     */
+    @Positive
+    private int batchSize = 1000;
+
+    /**
+     * 이 건수마다 커밋한다.
+     */
+    @Positive
+    private int commitSize = 50_000;
+
+    /**
+     * 동시에 적재하는 파티션 수. 각 파티션은 별도 스레드와 커넥션을 사용한다.
+     */
+    @Positive
+    private int partitions = 1;
+
+    private long randomSeed = 42;
+
+    @AssertTrue(message = "min-age must not be greater than max-age")
+    public boolean isAgeRangeValid() {
+        return minAge <= maxAge;
+    }
+}
@@ -16,6 +16,7 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.AccessorProjections;
 import jakarta.persistence.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +30,7 @@ import java.util.List;
 
 import static com.querydsl.jpa.JPAExpressions.select;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
@@ -566,6 +568,27 @@ public class QuerydslBasicTest {
         }
     }
 
+    @Test
+    void findUserDtoByAccessor() {
+        QMember subMember = new QMember("subMember");
+        List<UserDto> result = query
+                .select(AccessorProjections.bean(UserDto.class, member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(subMember.age.max())
+                                .from(subMember), "age")))
+                .from(member)
+                .fetch();
+        assertThat(result).extracting("name").containsExactlyInAnyOrder("memberA", "memberB", "memberC", "memberD");
+        assertThat(result).extracting("age").containsOnly(40);
+
+        List<MemberDto> members = query
+                .select(AccessorProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .where(member.username.eq("memberA"))
+                .fetch();
+        assertThat(members).extracting("username", "age").containsExactly(tuple("memberA", 10));
+    }
+
     @Test
     void findMemberDtoByQueryProjection() {
         List<MemberDto> result = query
@@ -0,0 +1,72 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.querydsl.repository.support.ConnectionGateFilter;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutionModeConfigTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(ExecutionModeConfig.class)
+            .withBean(DataSource.class, () -> hikari(10));
+
+    @Test
+    void permitsAreDerivedFromPoolSize() {
+        assertThat(ExecutionModeConfig.permits(0, () -> 10, 4)).isEqualTo(6);
+        assertThat(ExecutionModeConfig.permits(0, () -> 4, 4)).isEqualTo(1);
+        assertThat(ExecutionModeConfig.permits(0, () -> 2, 4)).isEqualTo(1);
+        assertThat(ExecutionModeConfig.permits(3, () -> {
+            throw new AssertionError("pool size is not needed");
+        }, 4)).isEqualTo(3);
+    }
+
+    @Test
+    void poolSizeOfBuiltDataSource() throws Exception {
+        assertThat(ExecutionModeConfig.connectionPoolSize(hikari(7))).isEqualTo(7);
+
+        // 라우팅이면 spring.datasource 가 아니라 실제로 만든 풀 중 가장 작은 것
+        try (ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(hikari(8), List.of(hikari(3), hikari(5)),
+                ReplicaRoutingDataSource.Strategy.ROUND_ROBIN)) {
+            assertThat(ExecutionModeConfig.connectionPoolSize(new LazyConnectionDataSourceProxy(routing))).isEqualTo(3);
+        }
+
+        assertThatThrownBy(() -> ExecutionModeConfig.connectionPoolSize(new DriverManagerDataSource("jdbc:h2:mem:")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void virtualModeRegistersGate() {
+        runner.withPropertyValues("querydsl.execution.mode=virtual", "querydsl.async.pool-size=4").run(context -> {
+            assertThat(context).hasSingleBean(ConnectionGateFilter.class);
+            assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+            assertThat(context.getBean(ConnectionGateFilter.class).availablePermits()).isEqualTo(6);
+        });
+    }
+
+    @Test
+    void platformModeRegistersNothing() {
+        runner.withPropertyValues("querydsl.execution.mode=platform").run(context -> {
+            assertThat(context).doesNotHaveBean(ConnectionGateFilter.class);
+            assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class);
+        });
+        runner.run(context -> assertThat(context).doesNotHaveBean(ConnectionGateFilter.class));
+    }
+
+    private static HikariDataSource hikari(int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    ReplicaRoutingDataSource routing;
+    JdbcTemplate jdbcTemplate;
+    DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        routing = new ReplicaRoutingDataSource(
+                h2("primary"),
+                List.of(h2("replica0"), h2("replica1")),
+                ReplicaRoutingDataSource.Strategy.ROUND_ROBIN);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routing.close();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplicas() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String first = readOnly.execute(status -> currentDatabase());
+        String second = readOnly.execute(status -> currentDatabase());
+
+        assertThat(List.of(first, second)).containsExactlyInAnyOrder("REPLICA0", "REPLICA1");
+    }
+
+    @Test
+    void writeTransactionAndNoTransactionGoToPrimary() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        assertThat(readWrite.execute(status -> currentDatabase())).isEqualTo("PRIMARY");
+        assertThat(currentDatabase()).isEqualTo("PRIMARY");
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select database()", String.class);
+    }
+
+    private static DriverManagerDataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
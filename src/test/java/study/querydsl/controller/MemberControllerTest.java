@@ -0,0 +1,153 @@
+package study.querydsl.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberColumns;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    private static final String V3 = "/v3/members?teamname=etagTeam&size=2";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("etagTeam");
+        em.persist(team);
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("etag" + i, 10 + i, team));
+        }
+        em.flush();
+    }
+
+    @Test
+    void matchingEtagReturns304WithoutQuery() throws Exception {
+        String etag = etag(V3);
+
+        long queries = searchPageComplexQueries();
+        mockMvc.perform(get(V3).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertThat(searchPageComplexQueries()).isEqualTo(queries);
+
+        mockMvc.perform(get("/v2/members?teamname=etagTeam&size=2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void entityWriteChangesEtag() throws Exception {
+        String etag = etag(V3);
+
+        em.persist(new Member("etag3", 13, null));
+        em.flush();
+
+        mockMvc.perform(get(V3).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        assertThat(etag(V3)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void bulkExecuteChangesEtag() throws Exception {
+        String etag = etag(V3);
+
+        new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("etag"))
+                .execute();
+
+        mockMvc.perform(get(V3).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertThat(etag(V3)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void membersNegotiatesColumnarFormats() throws Exception {
+        String uri = "/v1/members?teamname=etagTeam";
+
+        mockMvc.perform(get(uri).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3));
+
+        mockMvc.perform(asyncDispatch(columnar(uri, MemberColumns.JSON_MEDIA_TYPE)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberColumns.JSON_MEDIA_TYPE))
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.username[0]").value("etag0"))
+                .andExpect(jsonPath("$.username[2]").value("etag2"))
+                .andExpect(jsonPath("$.teams.teamname[0]").value("etagTeam"))
+                .andExpect(jsonPath("$.team[2]").value(0));
+
+        byte[] binary = mockMvc.perform(asyncDispatch(columnar(uri, MemberColumns.BINARY_MEDIA_TYPE)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberColumns.BINARY_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(binary).startsWith('M', 'C', 'O', 'L', 1, 3);
+    }
+
+    @Test
+    void csvCellsAreNotReadAsFormulas() {
+        assertThat(MemberController.csv("=1+2")).isEqualTo("'=1+2");
+        assertThat(MemberController.csv("+82")).isEqualTo("'+82");
+        assertThat(MemberController.csv("-1")).isEqualTo("'-1");
+        assertThat(MemberController.csv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(MemberController.csv("=HYPERLINK(\"x\",\"y\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"");
+        assertThat(MemberController.csv("member=1")).isEqualTo("member=1");
+        assertThat(MemberController.csv("")).isEmpty();
+    }
+
+    private MvcResult columnar(String uri, String mediaType) throws Exception {
+        return mockMvc.perform(get(uri).accept(mediaType))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private long searchPageComplexQueries() {
+        return meterRegistry.find("repository.query").tag("method", "searchPageComplex").tag("phase", "total")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private String etag(String uri) throws Exception {
+        String etag = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+        return etag;
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * id 300, 302, 301 : 차이 300(2바이트 varint), +2, -1
+     * 두 번째 행은 username 과 팀이 없고 나이가 음수
+     */
+    private MemberColumns columns() {
+        MemberColumns columns = new MemberColumns();
+        columns.add(300, "a", 10, 7L, "t");
+        columns.add(302, null, -1, null, null);
+        columns.add(301, "가", 20, 7L, "t");
+        return columns;
+    }
+
+    @Test
+    void writeBinary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columns().writeBinary(out);
+
+        assertThat(out.toByteArray()).containsExactly(bytes(
+                'M', 'C', 'O', 'L', 1,
+                3,                          // count
+                0xD8, 0x04, 0x04, 0x01,     // memberId: zigzag(300) = 600, zigzag(2) = 4, zigzag(-1) = 1
+                2, 'a', 0, 4, 0xEA, 0xB0, 0x80, // username: "a", null, "가"
+                0x14, 0x01, 0x28,           // age: zigzag(10), zigzag(-1), zigzag(20)
+                1, 0x0E, 2, 't',            // teams: 크기 1, (zigzag(7), "t")
+                1, 0, 1                     // team: 사전 번호 + 1, 팀 없음은 0
+        ));
+    }
+
+    @Test
+    void writeJson() throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            columns().writeJson(json);
+        }
+
+        assertThat(objectMapper.readTree(out.toString())).isEqualTo(objectMapper.readTree("""
+                {"count":3,
+                 "memberId":[300,302,301],
+                 "username":["a",null,"가"],
+                 "age":[10,-1,20],
+                 "teams":{"teamId":[7],"teamname":["t"]},
+                 "team":[0,-1,0]}
+                """));
+    }
+
+    @Test
+    void growsPastInitialCapacity() throws Exception {
+        MemberColumns columns = new MemberColumns();
+        for (int i = 1; i <= 3000; i++) {
+            columns.add(i, "m" + i, i % 100, i % 2 == 0 ? 1L : null, "t");
+        }
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            columns.writeJson(json);
+        }
+
+        assertThat(columns.size()).isEqualTo(3000);
+        assertThat(objectMapper.readTree(out.toString()).get("memberId").get(2999).asLong()).isEqualTo(3000);
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
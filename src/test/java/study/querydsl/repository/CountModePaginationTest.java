@@ -0,0 +1,93 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CappedPage;
+import study.querydsl.repository.support.CountMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Querydsl4RepositorySupport.applyPagination 의 CountMode. ESTIMATED 상한을 작게 두고 확인한다.
+ */
+@SpringBootTest(properties = "querydsl.count.estimate-cap=5")
+@Transactional
+class CountModePaginationTest {
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    Team team;
+    MemberSearchCond cond;
+
+    @BeforeEach
+    void setUp() {
+        team = new Team("countModeTeam");
+        em.persist(team);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("countMode" + i, i, team));
+        }
+        em.flush();
+
+        cond = new MemberSearchCond();
+        cond.setTeamname("countModeTeam");
+    }
+
+    @Test
+    void cachedCountIsReused() {
+        long counts = countQueries();
+
+        Page<Member> first = memberTestRepository.applyPaginationCountMode(cond, PageRequest.of(0, 3), CountMode.CACHED);
+        Page<Member> second = memberTestRepository.applyPaginationCountMode(cond, PageRequest.of(1, 3), CountMode.CACHED);
+
+        assertThat(first.getTotalElements()).isEqualTo(10);
+        assertThat(second.getTotalElements()).isEqualTo(10);
+        assertThat(second.getContent()).hasSize(3);
+        assertThat(countQueries()).isEqualTo(counts + 1);
+
+        // 쓰기가 있으면 다시 센다.
+        em.persist(new Member("countMode10", 10, team));
+        em.flush();
+        assertThat(memberTestRepository.applyPaginationCountMode(cond, PageRequest.of(0, 3), CountMode.CACHED)
+                .getTotalElements()).isEqualTo(11);
+        assertThat(countQueries()).isEqualTo(counts + 2);
+    }
+
+    @Test
+    void estimatedCountIsCapped() {
+        Page<Member> page = memberTestRepository.applyPaginationCountMode(cond, PageRequest.of(0, 3), CountMode.ESTIMATED);
+
+        assertThat(page).isInstanceOf(CappedPage.class);
+        assertThat(((CappedPage<Member>) page).isTotalCapped()).isTrue();
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).hasSize(3);
+
+        cond.setAgeLoe(3);
+        Page<Member> small = memberTestRepository.applyPaginationCountMode(cond, PageRequest.of(0, 3), CountMode.ESTIMATED);
+        assertThat(((CappedPage<Member>) small).isTotalCapped()).isFalse();
+        assertThat(small.getTotalElements()).isEqualTo(4);
+    }
+
+    private long countQueries() {
+        return meterRegistry.find("repository.query").tag("method", "applyPaginationCountMode").tag("phase", "count")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,151 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountMode;
+import study.querydsl.repository.support.MemberBitmapIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 인덱스는 읽기-쓰기 트랜잭션 안에서는 쓰이지 않으므로 데이터를 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest(properties = {"querydsl.bitmap-index.enabled=true", "querydsl.bitmap-index.min-rebuild-interval=0s"})
+class MemberBitmapIndexTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberBitmapIndex bitmapIndex;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.username.startsWith("bitmap")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("bitmap")).execute();
+        });
+    }
+
+    @Test
+    void searchFromIndex() throws InterruptedException {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("bitmapTeamA");
+            Team teamB = new Team("bitmapTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("bitmap" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            em.persist(new Member("bitmapNoTeam", 20));
+        });
+
+        awaitFresh();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamname("bitmapTeamA");
+        cond.setAgeGoe(15);
+        cond.setAgeLoe(24);
+        List<MemberTeamDto> result = memberRepository.search(cond);
+        assertThat(result).extracting("age").containsExactly(16, 18, 20, 22, 24);
+        assertThat(result).extracting("teamname").containsOnly("bitmapTeamA");
+
+        MemberSearchCond byUsername = new MemberSearchCond();
+        byUsername.setUsername("bitmapNoTeam");
+        assertThat(memberRepository.search(byUsername)).extracting("teamId").containsExactly((Long) null);
+
+        MemberSearchCond byAge = new MemberSearchCond();
+        byAge.setAgeGoe(20);
+        byAge.setAgeLoe(20);
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(byAge, PageRequest.of(0, 1), CountMode.EXACT);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).hasSize(1);
+    }
+
+    @Test
+    void indexAndDatabaseReturnSamePages() throws InterruptedException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("bitmapOrderTeam");
+            em.persist(team);
+            // id 순서와 나이 순서를 반대로 둔다.
+            for (int i = 0; i < 20; i++) {
+                em.persist(new Member("bitmapOrder" + i, 40 - i, i % 3 == 0 ? null : team));
+            }
+        });
+        awaitFresh();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setAgeGoe(25);
+        cond.setAgeLoe(40);
+
+        long queries = searchPageComplexQueries();
+        List<List<MemberTeamDto>> fromIndex = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            fromIndex.add(memberRepository.searchPageComplex(cond, PageRequest.of(page, 7), CountMode.EXACT).getContent());
+        }
+        assertThat(bitmapIndex.isFresh()).isTrue();
+        // 인덱스에서 답한 조회도 계측된다.
+        assertThat(searchPageComplexQueries()).isEqualTo(queries + 3);
+
+        // 읽기-쓰기 트랜잭션 안에서는 인덱스를 쓰지 않고 DB 로 조회한다.
+        List<List<MemberTeamDto>> fromDatabase = tx.execute(status -> {
+            List<List<MemberTeamDto>> pages = new ArrayList<>();
+            for (int page = 0; page < 3; page++) {
+                pages.add(memberRepository.searchPageComplex(cond, PageRequest.of(page, 7), CountMode.EXACT).getContent());
+            }
+            return pages;
+        });
+
+        assertThat(fromIndex).hasSize(3);
+        for (int page = 0; page < 3; page++) {
+            assertThat(fromIndex.get(page)).extracting("memberId").isSorted();
+            assertThat(fromIndex.get(page)).usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(fromDatabase.get(page));
+        }
+    }
+
+    private void awaitFresh() throws InterruptedException {
+        MemberSearchCond all = new MemberSearchCond();
+        for (int i = 0; i < 100 && !bitmapIndex.isFresh(); i++) {
+            memberRepository.search(all);
+            Thread.sleep(50);
+        }
+        assertThat(bitmapIndex.isFresh()).isTrue();
+    }
+
+    private long searchPageComplexQueries() {
+        return meterRegistry.find("repository.query").tag("method", "searchPageComplex").tag("phase", "total")
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+}
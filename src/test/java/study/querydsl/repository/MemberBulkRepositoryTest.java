@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.BulkProgress;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 청크마다 커밋하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    MemberBulkRepository bulkRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("bulk" + i, 20 + i));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status ->
+                new JPAQueryFactory(em).delete(member).where(member.username.startsWith("bulk")).execute());
+    }
+
+    @Test
+    void updateInChunks() {
+        List<BulkProgress> progress = new ArrayList<>();
+
+        long updated = bulkRepository.update(
+                member.username.startsWith("bulk").and(member.age.lt(28)),
+                clause -> clause.set(member.age, member.age.add(100)),
+                3, Duration.ZERO, progress::add);
+
+        assertThat(updated).isEqualTo(8);
+        assertThat(progress).extracting(BulkProgress::chunkRows).containsExactly(3L, 3L, 2L);
+        assertThat(progress.get(progress.size() - 1).isDone()).isTrue();
+        assertThat(progress.get(progress.size() - 1).totalRows()).isEqualTo(8);
+        assertThat(tx.execute(status -> new JPAQueryFactory(em)
+                .selectFrom(member)
+                .where(member.username.startsWith("bulk"), member.age.goe(100))
+                .fetchCount())).isEqualTo(8);
+    }
+
+    @Test
+    void deleteInChunks() {
+        long deleted = bulkRepository.delete(
+                member.username.startsWith("bulk").and(member.age.gt(22)), 4, Duration.ofMillis(1), progress -> {
+                });
+
+        assertThat(deleted).isEqualTo(7);
+        assertThat(tx.execute(status -> new JPAQueryFactory(em)
+                .selectFrom(member)
+                .where(member.username.startsWith("bulk"))
+                .fetch()))
+                .extracting(Member::getAge).containsExactlyInAnyOrder(20, 21, 22);
+    }
+
+    @Test
+    void rejectsOuterTransaction() {
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> bulkRepository.delete(member.username.startsWith("bulk"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
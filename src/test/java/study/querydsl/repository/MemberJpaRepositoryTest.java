@@ -3,6 +3,7 @@ package study.querydsl.repository;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import study.querydsl.dto.MemberColumns;
 import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -17,6 +18,7 @@ import study.querydsl.QuerydslApplication;
 import study.querydsl.entity.Team;
 import study.querydsl.repository.MemberJpaRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -178,4 +180,77 @@ class MemberJpaRepositoryTest {
 
         assertThat(memberTeamDtos).extracting("username").containsExactly("memberC", "memberD");
     }
-}
\ No newline at end of file
+
+    @Test
+    void streamByWhereTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, teamB));
+
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setAgeGoe(30);
+        memberSearchCond.setTeamname("teamB");
+
+        List<MemberTeamDto> streamed = new ArrayList<>();
+        long count = repository.streamByWhere(memberSearchCond, streamed::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(streamed).extracting("username").containsExactly("memberC", "memberD");
+    }
+
+    @Test
+    void scanByWhereTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("memberA", 10, teamA));
+        em.persist(new Member("memberB", 20, teamA));
+        em.persist(new Member("memberC", 30, teamB));
+        em.persist(new Member("memberD", 40, null));
+
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        memberSearchCond.setAgeGoe(20);
+
+        MemberColumns columns = new MemberColumns();
+        List<Long> ids = new ArrayList<>();
+        List<String> rows = new ArrayList<>();
+        long count = repository.scanByWhere(memberSearchCond, (memberId, username, age, teamId, teamname) -> {
+            columns.add(memberId, username, age, teamId, teamname);
+            ids.add(memberId);
+            rows.add(username + ":" + age + ":" + teamname);
+        });
+
+        assertThat(count).isEqualTo(3);
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(ids).isSorted();
+        assertThat(rows).containsExactly("memberB:20:teamA", "memberC:30:teamB", "memberD:40:null");
+    }
+
+    @Test
+    void saveAllTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            Member member = new Member("saveAll" + i, i % 100);
+            member.setTeam(teamA);
+            members.add(member);
+        }
+
+        long saved = repository.saveAll(members);
+
+        assertThat(saved).isEqualTo(2500);
+        assertThat(em.contains(members.get(0))).isFalse();
+        assertThat(repository.findByName("saveAll2499")).hasSize(1);
+        assertThat(members).extracting(Member::getId).doesNotHaveDuplicates();
+    }
+}
@@ -9,18 +9,26 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberCursor;
 import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberSearchRequest;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CappedPage;
+import study.querydsl.repository.support.CountMode;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
 
 @SpringBootTest
 @Transactional
@@ -169,6 +177,130 @@ class MemberRepositoryTest {
         assertThat(memberTeamDtos).extracting("username").containsExactly("memberA", "memberB", "memberC");
     }
 
+    @Test
+    void searchPageComplexCountModeTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<MemberTeamDto> cached = repository.searchPageComplex(memberSearchCond, pageRequest, CountMode.CACHED);
+        assertThat(cached.getTotalElements()).isEqualTo(10);
+
+        em.persist(new Member("member10", 10, teamA));
+        em.flush();
+
+        Page<MemberTeamDto> afterWrite = repository.searchPageComplex(memberSearchCond, pageRequest, CountMode.CACHED);
+        assertThat(afterWrite.getTotalElements()).isEqualTo(11);
+
+        Page<MemberTeamDto> estimated = repository.searchPageComplex(memberSearchCond, pageRequest, CountMode.ESTIMATED);
+        assertThat(estimated).isInstanceOf(CappedPage.class);
+        assertThat(((CappedPage<MemberTeamDto>) estimated).isTotalCapped()).isFalse();
+        assertThat(estimated.getTotalElements()).isEqualTo(11);
+    }
+
+    @Test
+    void searchShapeCacheMatchesQuerydslTest() {
+        query = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 8; i++) {
+            em.persist(new Member("member" + (i % 3), i * 10, i % 4 == 3 ? null : (i % 2 == 0 ? teamA : teamB)));
+        }
+
+        // 4 개 조건의 모든 조합(16 shape)을 두 번씩 실행해 두 번째는 캐시된 JPQL 을 쓰게 한다.
+        for (int round = 0; round < 2; round++) {
+            for (int shape = 0; shape < 16; shape++) {
+                MemberSearchCond cond = new MemberSearchCond();
+                cond.setUsername((shape & 1) != 0 ? "member" + round : null);
+                cond.setTeamname((shape & 2) != 0 ? (round == 0 ? "teamA" : "teamB") : "");
+                cond.setAgeLoe((shape & 4) != 0 ? 50 + round * 10 : null);
+                cond.setAgeGoe((shape & 8) != 0 ? 10 + round * 10 : null);
+
+                List<MemberTeamDto> expected = query
+                        .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(cond.getUsername() != null ? member.username.eq(cond.getUsername()) : null,
+                                StringUtils.hasText(cond.getTeamname()) ? team.name.eq(cond.getTeamname()) : null,
+                                cond.getAgeLoe() != null ? member.age.loe(cond.getAgeLoe()) : null,
+                                cond.getAgeGoe() != null ? member.age.goe(cond.getAgeGoe()) : null)
+                        .fetch();
+
+                assertThat(repository.search(cond)).as("shape %d", shape)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+                assertThat(repository.searchPageComplex(cond, PageRequest.of(0, 100)).getContent()).as("shape %d", shape)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    @Test
+    void searchPageBatchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("memberA" + i, i, teamA));
+        }
+        em.persist(new Member("memberB", 30, teamB));
+
+        MemberSearchRequest firstPage = new MemberSearchRequest();
+        firstPage.getCondition().setTeamname("teamA");
+        firstPage.setSize(3);
+
+        MemberSearchRequest lastPage = new MemberSearchRequest();
+        lastPage.getCondition().setTeamname("teamA");
+        lastPage.setPage(1);
+        lastPage.setSize(3);
+
+        MemberSearchRequest byTeamB = new MemberSearchRequest();
+        byTeamB.getCondition().setTeamname("teamB");
+
+        List<Page<MemberTeamDto>> pages = repository.searchPageBatch(List.of(firstPage, lastPage, byTeamB));
+
+        assertThat(pages).hasSize(3);
+        assertThat(pages.get(0).getContent()).hasSize(3);
+        assertThat(pages.get(0).getTotalElements()).isEqualTo(5);
+        assertThat(pages.get(1).getContent()).hasSize(2);
+        assertThat(pages.get(1).getTotalElements()).isEqualTo(5);
+        assertThat(pages.get(2).getContent()).extracting("username").containsExactly("memberB");
+        assertThat(pages.get(2).getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void searchAfterTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("memberA", 40, teamA));
+        em.persist(new Member("memberB", 30, teamA));
+        em.persist(new Member("memberC", 20, teamB));
+        em.persist(new Member("memberD", 10, teamB));
+
+        MemberSearchCond memberSearchCond = new MemberSearchCond();
+
+        MemberCursor cursor = MemberCursor.first(MemberCursor.Order.AGE);
+        Slice<MemberTeamDto> first = repository.searchAfter(memberSearchCond, cursor, 3);
+        assertThat(first).extracting("username").containsExactly("memberD", "memberC", "memberB");
+        assertThat(first.hasNext()).isTrue();
+
+        MemberCursor next = MemberCursor.decode(MemberCursor.next(MemberCursor.Order.AGE, first.getContent().get(2)).encode());
+        Slice<MemberTeamDto> second = repository.searchAfter(memberSearchCond, next, 3);
+        assertThat(second).extracting("username").containsExactly("memberA");
+        assertThat(second.hasNext()).isFalse();
+    }
+
     @Test
     void querydslPredicateExecutorTest() {
         query = new JPAQueryFactory(em);
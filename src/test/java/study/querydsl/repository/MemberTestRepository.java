@@ -6,8 +6,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCond;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountMode;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 import java.util.List;
@@ -33,6 +35,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 .fetch();
     }
 
+    @Transactional(readOnly = true)
     public Page<Member> searchPageByApplyPage(MemberSearchCond condition, Pageable pageable) {
         JPAQuery<Member> query = selectFrom(member)
                 .leftJoin(member.team, team)
@@ -46,6 +49,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                 query::fetchCount);
     }
 
+    @Transactional(readOnly = true)
     public Page<Member> applyPagination(MemberSearchCond condition,
                                         Pageable pageable) {
         return applyPagination(pageable, contentQuery -> contentQuery
@@ -57,6 +61,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
                         ageLoe(condition.getAgeLoe())));
     }
 
+    @Transactional(readOnly = true)
     public Page<Member> applyPagination2(MemberSearchCond condition,
                                          Pageable pageable) {
         return applyPagination(pageable, contentQuery -> contentQuery
@@ -76,6 +81,47 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
+    @Transactional(readOnly = true)
+    public Page<Member> applyPaginationParallel(MemberSearchCond condition,
+                                                Pageable pageable) {
+        return applyPaginationParallel("applyPaginationParallel", pageable, contentQuery -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamname()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())),
+                countQuery -> countQuery
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamname()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe()))
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Member> applyPaginationCountMode(MemberSearchCond condition, Pageable pageable, CountMode countMode) {
+        return applyPagination("applyPaginationCountMode", pageable, contentQuery -> contentQuery
+                        .selectFrom(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamname()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())),
+                countQuery -> countQuery
+                        .select(member.id)
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(usernameEq(condition.getUsername()),
+                                teamNameEq(condition.getTeamname()),
+                                ageGoe(condition.getAgeGoe()),
+                                ageLoe(condition.getAgeLoe())),
+                countMode, List.of("applyPaginationCountMode", condition.normalized()));
+    }
+
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? null : member.username.eq(username);
     }
@@ -0,0 +1,48 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.NPlusOneDetector;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"querydsl.n-plus-one.enabled=true", "querydsl.n-plus-one.threshold=5"})
+@Transactional
+class NPlusOneDetectorTest {
+
+    @Autowired
+    MemberJpaRepository repository;
+
+    @Autowired
+    NPlusOneDetector detector;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    void lazyTeamLoadingIsDetected() {
+        for (int i = 0; i < 6; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+
+        List<Member> members = repository.findAll_querydsl();
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+
+        assertThat(detector.recentDetections())
+                .anySatisfy(detection -> assertThat(detection.repositoryMethod()).endsWith("MemberJpaRepository.findAll_querydsl"));
+    }
+}
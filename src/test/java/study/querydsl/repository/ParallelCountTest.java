@@ -0,0 +1,108 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * PARALLEL count 는 다른 트랜잭션에서 실행되므로 데이터를 커밋하고 테스트 트랜잭션 없이 실행한다.
+ */
+@SpringBootTest
+class ParallelCountTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team parallelTeam = new Team("parallelTeam");
+            em.persist(parallelTeam);
+            for (int i = 0; i < 7; i++) {
+                em.persist(new Member("parallel" + i, i, parallelTeam));
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.username.startsWith("parallel")).execute();
+            queryFactory.delete(team).where(team.name.eq("parallelTeam")).execute();
+        });
+    }
+
+    @Test
+    void searchPageComplexCountsInParallel() {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamname("parallelTeam");
+
+        Page<MemberTeamDto> first = memberRepository.searchPageComplex(cond, PageRequest.of(0, 3), CountMode.PARALLEL);
+        assertThat(first.getContent()).hasSize(3);
+        assertThat(first.getTotalElements()).isEqualTo(7);
+
+        // 마지막 페이지는 count 없이 total 을 알 수 있다.
+        Page<MemberTeamDto> last = memberRepository.searchPageComplex(cond, PageRequest.of(2, 3), CountMode.PARALLEL);
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getTotalElements()).isEqualTo(7);
+    }
+
+    @Test
+    void parallelCountInsideWriteTransactionSeesUncommittedRows() {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamname("parallelTeam");
+
+        Long total = tx.execute(status -> {
+            em.persist(new Member("parallel7", 7, em.createQuery("select t from Team t where t.name = 'parallelTeam'", Team.class)
+                    .getSingleResult()));
+            em.flush();
+            long result = memberRepository.searchPageComplex(cond, PageRequest.of(0, 3), CountMode.PARALLEL).getTotalElements();
+            status.setRollbackOnly();
+            return result;
+        });
+
+        assertThat(total).isEqualTo(8);
+    }
+
+    @Test
+    void applyPaginationParallel() {
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setTeamname("parallelTeam");
+
+        Page<Member> page = memberTestRepository.applyPaginationParallel(cond, PageRequest.of(1, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 2차 캐시는 커밋 후에 채워지고 다른 세션에서 읽혀야 하므로 트랜잭션마다 커밋하고 테스트 트랜잭션 없이 실행한다.
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "cache"})
+class SecondLevelCacheTest {
+
+    private static final String TEAM_REGION = Team.class.getName();
+    private static final String MEMBERS_ROLE = Team.class.getName() + ".members";
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+    long teamId;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        teamId = tx.execute(status -> {
+            Team cacheTeam = new Team("cacheTeam");
+            em.persist(cacheTeam);
+            em.persist(new Member("cache0", 10, cacheTeam));
+            em.persist(new Member("cache1", 20, cacheTeam));
+            return cacheTeam.getId();
+        });
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tx.executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.username.startsWith("cache")).execute();
+            queryFactory.delete(team).where(team.name.eq("cacheTeam")).execute();
+        });
+    }
+
+    @Test
+    void entityAndCollectionRegions() {
+        assertThat(membersOfTeam()).isEqualTo(2);
+        assertThat(membersOfTeam()).isEqualTo(2);
+
+        assertThat(statistics.getEntityStatistics(TEAM_REGION).getCacheHitCount()).isPositive();
+        assertThat(statistics.getCollectionStatistics(MEMBERS_ROLE).getCacheHitCount()).isPositive();
+        assertThat(meterRegistry.find("cache.gets").tags("layer", "hibernate", "cache", TEAM_REGION).meters()).isNotEmpty();
+    }
+
+    @Test
+    void changingMemberTeamEvictsCachedCollection() {
+        assertThat(membersOfTeam()).isEqualTo(2);
+
+        // 소유 쪽(Member.team)만 바꾼다.
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("cache1").get(0).setTeam(null));
+
+        assertThat(membersOfTeam()).isEqualTo(1);
+    }
+
+    @Test
+    void findByUsernameQueryCache() {
+        assertThat(memberRepository.findByUsername("cache0")).hasSize(1);
+        assertThat(memberRepository.findByUsername("cache0")).hasSize(1);
+
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // member 테이블에 쓰면 캐시된 결과를 쓰지 않는다.
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("cache0").get(0).setUsername("cache0-renamed"));
+
+        assertThat(memberRepository.findByUsername("cache0")).isEmpty();
+        assertThat(memberRepository.findByUsername("cache0-renamed")).hasSize(1);
+    }
+
+    private int membersOfTeam() {
+        return tx.execute(status -> em.find(Team.class, teamId).getMembers().size());
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.SingleFlight;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 먼저 온 요청을 기다리는 동안 커넥션을 잡고 있지 않아야 하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@SpringBootTest
+class SingleFlightConnectionTest {
+
+    private static final int FOLLOWERS = 4;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void followersDoNotHoldConnections() throws Exception {
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername("singleFlightConnection");
+        List<MemberTeamDto> leaderResult = List.of();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            long executed = singleFlight.getExecutedCount();
+            // search 와 같은 키로 먼저 실행 중인 조회를 흉내 낸다
+            Future<List<MemberTeamDto>> leader = executor.submit(() -> singleFlight.execute(
+                    List.of("search", cond.normalized()), () -> {
+                        await(release);
+                        return leaderResult;
+                    }));
+            while (singleFlight.getExecutedCount() == executed) {
+                Thread.onSpinWait();
+            }
+
+            long coalesced = singleFlight.getCoalescedCount();
+            List<Future<List<MemberTeamDto>>> followers = new ArrayList<>();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                followers.add(executor.submit(() -> memberRepository.search(cond)));
+            }
+            while (singleFlight.getCoalescedCount() < coalesced + FOLLOWERS) {
+                Thread.onSpinWait();
+            }
+
+            assertThat(pool.getActiveConnections()).isZero();
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(leaderResult);
+            for (Future<List<MemberTeamDto>> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leaderResult);
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
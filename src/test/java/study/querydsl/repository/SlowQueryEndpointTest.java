@@ -0,0 +1,38 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCond;
+import study.querydsl.repository.support.SlowQueryEndpoint;
+import study.querydsl.repository.support.SlowQueryLog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"querydsl.slow-query.enabled=true", "querydsl.slow-query.threshold=0ms"})
+@Transactional
+class SlowQueryEndpointTest {
+
+    @Autowired
+    SlowQueryEndpoint endpoint;
+
+    @Autowired
+    MemberJpaRepository repository;
+
+    @Test
+    void capturedStatementsAreServedAndCleared() {
+        endpoint.clear();
+
+        MemberSearchCond cond = new MemberSearchCond();
+        cond.setUsername("slowQueryEndpoint");
+        repository.searchByWhere(cond);
+
+        assertThat(endpoint.slowQueries())
+                .extracting(SlowQueryLog.SlowQueryView::sql)
+                .anySatisfy(sql -> assertThat(sql).contains("'slowQueryEndpoint'"));
+
+        endpoint.clear();
+        assertThat(endpoint.slowQueries()).isEmpty();
+    }
+}
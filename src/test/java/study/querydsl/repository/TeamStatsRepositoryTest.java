@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 통계는 커밋 후에 반영되므로 트랜잭션을 직접 커밋하고 끝나면 지운다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.username.startsWith("stats")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("statsTeam")).execute();
+        });
+    }
+
+    @Test
+    void incrementalAndBulkUpdates() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long[] ids = tx.execute(status -> {
+            Team teamA = new Team("statsTeamA");
+            Team teamB = new Team("statsTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            Member member1 = new Member("stats1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("stats2", 20, teamA));
+            em.persist(new Member("stats3", 30, teamA));
+            return new long[]{teamA.getId(), teamB.getId(), member1.getId()};
+        });
+        long teamAId = ids[0];
+        long teamBId = ids[1];
+        long member1Id = ids[2];
+
+        TeamStatsDto teamA = teamStatsRepository.findById(teamAId).orElseThrow();
+        assertThat(teamA.getTeamName()).isEqualTo("statsTeamA");
+        assertThat(teamA.getMemberCount()).isEqualTo(3);
+        assertThat(teamA.getAgeSum()).isEqualTo(60);
+        assertThat(teamA.getAgeMin()).isEqualTo(10);
+        assertThat(teamA.getAgeMax()).isEqualTo(30);
+        assertThat(teamA.getAgeAvg()).isEqualTo(20.0);
+
+        // 팀 변경은 커밋 후에 반영된다
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.setTeam(em.find(Team.class, teamBId));
+            member1.setAge(15);
+        });
+
+        teamA = teamStatsRepository.findById(teamAId).orElseThrow();
+        TeamStatsDto teamB = teamStatsRepository.findById(teamBId).orElseThrow();
+        assertThat(teamA.getMemberCount()).isEqualTo(2);
+        assertThat(teamA.getAgeMin()).isEqualTo(20);
+        assertThat(teamB.getMemberCount()).isEqualTo(1);
+        assertThat(teamB.getAgeSum()).isEqualTo(15);
+
+        // 벌크 연산은 group by 로 다시 만든다
+        tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.startsWith("stats"))
+                .execute());
+
+        teamA = teamStatsRepository.findById(teamAId).orElseThrow();
+        assertThat(teamA.getAgeSum()).isEqualTo(52);
+        assertThat(teamA.getAgeMax()).isEqualTo(31);
+    }
+
+    @Test
+    void rebuildAfterChangesWereCollectedIsNotDoubleCounted() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long teamId = tx.execute(status -> {
+            Team statsTeam = new Team("statsTeamRace");
+            em.persist(statsTeam);
+            return statsTeam.getId();
+        });
+        assertThat(teamStatsRepository.findById(teamId).orElseThrow().getMemberCount()).isZero();
+
+        // 커밋 후, 변경을 반영하기 전에 다시 만들면 새 통계에 이 회원이 이미 들어 있다
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("statsRace", 40, em.find(Team.class, teamId)));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    teamStatsRepository.invalidate();
+                    teamStatsRepository.findById(teamId);
+                }
+            });
+        });
+
+        TeamStatsDto stats = teamStatsRepository.findById(teamId).orElseThrow();
+        assertThat(stats.getMemberCount()).isEqualTo(1);
+        assertThat(stats.getAgeSum()).isEqualTo(40);
+    }
+}
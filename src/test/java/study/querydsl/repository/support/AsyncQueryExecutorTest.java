@@ -0,0 +1,67 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncQueryExecutorTest {
+
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    private final AsyncQueryExecutor asyncQueryExecutor = new AsyncQueryExecutor(transactionManager, 2, 16,
+            ExecutionMode.PLATFORM);
+
+    @AfterEach
+    void tearDown() {
+        asyncQueryExecutor.destroy();
+    }
+
+    @Test
+    void claimedTaskRunsInReadOnlyTransaction() throws Exception {
+        Long result = asyncQueryExecutor.trySubmit(() -> true, () -> 42L).orElseThrow().get(5, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo(42L);
+        assertThat(transactionManager.begins.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unclaimedTaskDoesNotOpenTransaction() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+
+        Integer result = asyncQueryExecutor.trySubmit(() -> false, queries::incrementAndGet)
+                .orElseThrow().get(5, TimeUnit.SECONDS);
+
+        assertThat(result).isNull();
+        assertThat(queries.get()).isZero();
+        assertThat(transactionManager.begins.get()).isZero();
+    }
+
+    private static class CountingTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final AtomicInteger begins = new AtomicInteger();
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begins.incrementAndGet();
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionGateFilterTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void exhaustedPermitsReturn503() throws Exception {
+        ConnectionGateFilter filter = new ConnectionGateFilter(1, Duration.ofMillis(50), List.of("/actuator/**"));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<MockHttpServletResponse> holder = executor.submit(() -> call(filter, "/v1/members", blocking(entered, release)));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(call(filter, "/members/batch", (request, response) -> {
+        }).getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        // actuator 는 제한하지 않는다
+        assertThat(call(filter, "/actuator/health", (request, response) -> {
+        }).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+        release.countDown();
+        assertThat(holder.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void waitingRequestProceedsWhenPermitIsReleased() throws Exception {
+        ConnectionGateFilter filter = new ConnectionGateFilter(1, Duration.ofSeconds(5), List.of());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<MockHttpServletResponse> holder = executor.submit(() -> call(filter, "/v1/members", blocking(entered, release)));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CountDownLatch queuedEntered = new CountDownLatch(1);
+        Future<MockHttpServletResponse> queued = executor.submit(() -> call(filter, "/v1/members/stream",
+                (request, response) -> queuedEntered.countDown()));
+        assertThat(queuedEntered.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(queuedEntered.getCount()).isZero();
+        assertThat(holder.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    void asyncRequestHoldsPermitUntilComplete() throws Exception {
+        ConnectionGateFilter filter = new ConnectionGateFilter(1, Duration.ofMillis(50), List.of());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members/stream");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(filter.availablePermits()).isZero();
+        request.getAsyncContext().complete();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    private static MockHttpServletResponse call(ConnectionGateFilter filter, String uri, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", uri), response, chain);
+        return response;
+    }
+
+    private static FilterChain blocking(CountDownLatch entered, CountDownLatch release) {
+        return (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+}
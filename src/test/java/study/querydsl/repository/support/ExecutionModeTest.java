@@ -0,0 +1,36 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionModeTest {
+
+    @Test
+    void platformUsesPlatformThreads() throws Exception {
+        Thread thread = ExecutionMode.PLATFORM.threadFactory("platform-").newThread(() -> {
+        });
+
+        assertThat(ExecutionMode.PLATFORM.usesVirtualThreads()).isFalse();
+        assertThat(thread.getName()).startsWith("platform-");
+        assertThat(isVirtual(thread)).isFalse();
+    }
+
+    @Test
+    void virtualUsesVirtualThreadsWhenSupported() throws Exception {
+        Thread thread = ExecutionMode.VIRTUAL.threadFactory("virtual-").newThread(() -> {
+        });
+
+        // Java 21 미만이면 플랫폼 스레드로 대신한다
+        assertThat(ExecutionMode.VIRTUAL.usesVirtualThreads()).isEqualTo(ExecutionMode.isVirtualThreadSupported());
+        assertThat(thread.getName()).startsWith("virtual-");
+        assertThat(isVirtual(thread)).isEqualTo(ExecutionMode.isVirtualThreadSupported());
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        if (!ExecutionMode.isVirtualThreadSupported()) {
+            return false;
+        }
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageCounterTest {
+
+    private final TableVersionTracker versionTracker = new TableVersionTracker();
+    private final PageCounter pageCounter = new PageCounter(versionTracker, new QueryMetrics(new SimpleMeterRegistry(), 16),
+            null, Duration.ofMinutes(1), 100, new String[]{"member", "team"}, 1000);
+
+    private final List<Integer> content = List.of(1, 2, 3);
+
+    @Test
+    void cachedCountIsKeptUntilTrackedTableIsWritten() {
+        AtomicInteger counts = new AtomicInteger();
+        JPAQuery<?> query = mock(JPAQuery.class);
+        when(query.fetchCount()).thenAnswer(invocation -> 10L + counts.getAndIncrement());
+
+        assertThat(cached(query).getTotalElements()).isEqualTo(10);
+        assertThat(cached(query).getTotalElements()).isEqualTo(10);
+
+        versionTracker.bump("hello");
+        assertThat(cached(query).getTotalElements()).isEqualTo(10);
+
+        versionTracker.bump("member");
+        assertThat(cached(query).getTotalElements()).isEqualTo(11);
+        assertThat(counts).hasValue(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void estimatedCountReadsOnlyConstantUpToCap() {
+        JPAQuery<Object> query = mock(JPAQuery.class);
+        when(query.select(any(Expression.class))).thenReturn(query);
+        when(query.limit(anyLong())).thenReturn(query);
+        when(query.fetch()).thenReturn(Collections.<Object>nCopies(1001, 1));
+
+        Page<Integer> page = pageCounter.getPage(content, PageRequest.of(0, 3), CountMode.ESTIMATED, null, () -> query);
+
+        assertThat(page).isInstanceOf(CappedPage.class);
+        assertThat(((CappedPage<Integer>) page).isTotalCapped()).isTrue();
+        assertThat(page.getTotalElements()).isEqualTo(1000);
+        verify(query).limit(1001);
+        verify(query, never()).fetchCount();
+    }
+
+    private Page<Integer> cached(JPAQuery<?> query) {
+        return pageCounter.getPage(content, PageRequest.of(0, 3), CountMode.CACHED, "key", () -> query);
+    }
+}
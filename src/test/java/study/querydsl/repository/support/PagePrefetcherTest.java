@@ -0,0 +1,88 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PagePrefetcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TableVersionTracker versionTracker = new TableVersionTracker();
+    private final AsyncQueryExecutor asyncQueryExecutor = new AsyncQueryExecutor(new NoOpTransactionManager(), 4, 16,
+            ExecutionMode.PLATFORM);
+    private final PagePrefetcher prefetcher = new PagePrefetcher(versionTracker, asyncQueryExecutor, registry,
+            true, 100, Duration.ofMinutes(1), new String[]{"member", "team"});
+
+    private final Queue<Integer> loaded = new ConcurrentLinkedQueue<>();
+    private final Function<Pageable, Page<Integer>> loader = pageable -> {
+        loaded.add(pageable.getPageNumber());
+        return new PageImpl<>(List.of(pageable.getPageNumber()), pageable, 1000);
+    };
+
+    @AfterEach
+    void tearDown() {
+        asyncQueryExecutor.destroy();
+    }
+
+    @Test
+    void sequentialPagesAreServedFromPrefetch() {
+        assertThat(prefetcher.get("cond", PageRequest.of(0, 10), loader).getContent()).containsExactly(0);
+        assertThat(prefetcher.get("cond", PageRequest.of(1, 10), loader).getContent()).containsExactly(1);
+        assertThat(prefetcher.get("cond", PageRequest.of(2, 10), loader).getContent()).containsExactly(2);
+
+        assertThat(counter("hit")).isEqualTo(2);
+        assertThat(counter("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void jumpOrWriteDiscardsPrefetch() {
+        prefetcher.get("cond", PageRequest.of(0, 10), loader);
+        assertThat(prefetcher.get("cond", PageRequest.of(5, 10), loader).getContent()).containsExactly(5);
+
+        prefetcher.get("other", PageRequest.of(0, 10), loader);
+        versionTracker.bump("member");
+        assertThat(prefetcher.get("other", PageRequest.of(1, 10), loader).getContent()).containsExactly(1);
+
+        assertThat(counter("hit")).isZero();
+        assertThat(counter("discarded")).isEqualTo(2);
+    }
+
+    private double counter(String result) {
+        return registry.get("repository.prefetch").tag("result", result).counter().count();
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryMetrics queryMetrics = new QueryMetrics(registry, 3);
+
+    @Test
+    void recordsPhasesRowsAndSamples() {
+        List<Integer> rows = queryMetrics.record("search", "username", () -> {
+            queryMetrics.timeCount(() -> 42L);
+            return List.of(1, 2, 3);
+        });
+
+        assertThat(rows).hasSize(3);
+        assertThat(timer("search", "username", "total").count()).isEqualTo(1);
+        assertThat(timer("search", "username", "content").count()).isEqualTo(1);
+        assertThat(timer("search", "username", "count").count()).isEqualTo(1);
+        assertThat(registry.get("repository.query.rows").tag("method", "search").summary().totalAmount()).isEqualTo(3);
+
+        QueryMetrics.QuerySample sample = new QuerySamplesEndpoint(queryMetrics).samples().get(0);
+        assertThat(sample.method()).isEqualTo("search");
+        assertThat(sample.rows()).isEqualTo(3);
+        assertThat(sample.countMicros()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void explicitRowCounter() {
+        queryMetrics.record("searchPageBatch", "batch", () -> List.<Page<Integer>>of(
+                        new PageImpl<>(List.of(1, 2, 3)), new PageImpl<>(List.of(4, 5))),
+                pages -> pages.stream().mapToLong(Page::getNumberOfElements).sum());
+
+        assertThat(registry.get("repository.query.rows").tag("method", "searchPageBatch").summary().totalAmount()).isEqualTo(5);
+        assertThat(queryMetrics.recentSamples().get(0).rows()).isEqualTo(5);
+    }
+
+    @Test
+    void countPhaseIsOnlyRecordedWhenCountRuns() {
+        queryMetrics.record("searchAfter", "none", List::of);
+
+        assertThat(registry.find("repository.query").tag("method", "searchAfter").tag("phase", "count").timer()).isNull();
+        assertThat(queryMetrics.recentSamples().get(0).countMicros()).isEqualTo(-1);
+    }
+
+    @Test
+    void samplesKeepOnlyMostRecentInOrder() {
+        for (int i = 0; i < 5; i++) {
+            int rows = i;
+            queryMetrics.record("m" + i, "none", () -> rows);
+        }
+
+        assertThat(queryMetrics.recentSamples()).extracting(QueryMetrics.QuerySample::method)
+                .containsExactly("m2", "m3", "m4");
+    }
+
+    private Timer timer(String method, String shape, String phase) {
+        return registry.get("repository.query").tag("method", method).tag("shape", shape).tag("phase", phase).timer();
+    }
+}
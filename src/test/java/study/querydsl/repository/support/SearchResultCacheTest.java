@@ -0,0 +1,28 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    @Test
+    void writeToTrackedTableInvalidates() {
+        TableVersionTracker versionTracker = new TableVersionTracker();
+        SearchResultCache cache = new SearchResultCache(versionTracker, true, 100, Duration.ofMinutes(1),
+                new String[]{"member", "team"});
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+
+        versionTracker.bump("hello");
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(1);
+
+        versionTracker.bump("member");
+        assertThat(cache.get("key", loads::incrementAndGet)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await(5, TimeUnit.SECONDS);
+
+            List<Future<String>> followers = List.of(
+                    executor.submit(() -> singleFlight.execute("key", () -> "other" + calls.incrementAndGet())),
+                    executor.submit(() -> singleFlight.execute("key", () -> "other" + calls.incrementAndGet())));
+            while (singleFlight.getCoalescedCount() < 2) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+            }
+            assertThat(calls.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureIsNotCached() {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> "ok")).isEqualTo("ok");
+    }
+
+    @Test
+    void followersGetLeadersOriginalThrowable() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5));
+        StackOverflowError error = new StackOverflowError("boom");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw error;
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "other"));
+            while (singleFlight.getCoalescedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class).cause().isSameAs(error);
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class).cause().isSameAs(error);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void followerWaitIsBounded() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "result";
+            }));
+            started.await(5, TimeUnit.SECONDS);
+
+            assertThatThrownBy(() -> singleFlight.execute("key", () -> "other"))
+                    .isInstanceOf(QueryTimeoutException.class);
+
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
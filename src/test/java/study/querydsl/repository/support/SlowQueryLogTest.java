@@ -0,0 +1,91 @@
+package study.querydsl.repository.support;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlowQueryLogTest {
+
+    private static final String SQL = "select id from slow_item where name = ? and id > ?";
+
+    DriverManagerDataSource dataSource;
+    SlowQueryLog slowQueryLog;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1", "sa", "");
+        new JdbcTemplate(dataSource).execute("create table if not exists slow_item (id bigint primary key, name varchar(255))");
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("dataSource", dataSource));
+        slowQueryLog = new SlowQueryLog(beanFactory.getBeanProvider(DataSource.class), Duration.ofMillis(100), 1.0, 2, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowQueryLog.destroy();
+        new JdbcTemplate(dataSource).execute("drop table slow_item");
+    }
+
+    @Test
+    void keepsSlowestPerSqlAndIgnoresFastOnes() {
+        slowQueryLog.onAfterAnyExecute(statement("select 1", "select 1"), TimeUnit.MILLISECONDS.toNanos(10), null);
+        slowQueryLog.onAfterAnyExecute(statement("update slow_item set name = ?", "update slow_item set name = 'a'"),
+                TimeUnit.MILLISECONDS.toNanos(300), null);
+        slowQueryLog.onAfterAnyExecute(statement("update slow_item set name = ?", "update slow_item set name = 'b'"),
+                TimeUnit.MILLISECONDS.toNanos(200), null);
+        slowQueryLog.onAfterAnyExecute(statement("delete from slow_item", "delete from slow_item"),
+                TimeUnit.MILLISECONDS.toNanos(150), null);
+
+        List<SlowQueryLog.SlowQueryView> worst = slowQueryLog.worstQueries();
+        assertThat(worst).extracting(SlowQueryLog.SlowQueryView::sql)
+                .containsExactly("update slow_item set name = 'a'", "delete from slow_item");
+        assertThat(worst.get(0).count()).isEqualTo(2);
+
+        slowQueryLog.clear();
+        assertThat(slowQueryLog.worstQueries()).isEmpty();
+    }
+
+    @Test
+    void explainBindsParametersInsteadOfInliningThem() throws InterruptedException {
+        String injection = "x' or '1'='1";
+        PreparedStatementInformation statement = statement(SQL,
+                "select id from slow_item where name = '" + injection + "' and id > 0");
+        slowQueryLog.onAfterPreparedStatementSet(statement, 1, injection, null);
+        slowQueryLog.onAfterPreparedStatementSet(statement, 2, 0L, null);
+        slowQueryLog.onAfterAnyExecute(statement, TimeUnit.SECONDS.toNanos(1), null);
+
+        String plan = awaitPlan();
+        assertThat(plan).doesNotStartWith("EXPLAIN failed").containsIgnoringCase("slow_item");
+    }
+
+    private String awaitPlan() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            String plan = slowQueryLog.worstQueries().get(0).plan();
+            if (plan != null) {
+                return plan;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("EXPLAIN did not finish");
+    }
+
+    private static PreparedStatementInformation statement(String sql, String sqlWithValues) {
+        PreparedStatementInformation statement = mock(PreparedStatementInformation.class);
+        when(statement.getSql()).thenReturn(sql);
+        when(statement.getSqlWithValues()).thenReturn(sqlWithValues);
+        return statement;
+    }
+}
@@ -0,0 +1,53 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.repository.support.SqlStatement.Kind.BULK_WRITE;
+import static study.querydsl.repository.support.SqlStatement.Kind.ENTITY_WRITE;
+import static study.querydsl.repository.support.SqlStatement.Kind.EXPLAIN;
+import static study.querydsl.repository.support.SqlStatement.Kind.OTHER;
+import static study.querydsl.repository.support.SqlStatement.Kind.SELECT;
+
+class SqlStatementTest {
+
+    @Test
+    void select() {
+        SqlStatement statement = SqlStatement.parse("/* select m from Member m */ select m1_0.member_id from member m1_0");
+
+        assertThat(statement.kind()).isEqualTo(SELECT);
+        assertThat(statement.table()).isNull();
+        assertThat(statement.isWrite()).isFalse();
+    }
+
+    @Test
+    void entityWrites() {
+        assertThat(SqlStatement.parse("insert into member (age,team_id,username,member_id) values (?,?,?,?)"))
+                .isEqualTo(new SqlStatement(ENTITY_WRITE, "member",
+                        "insert into member (age,team_id,username,member_id) values (?,?,?,?)"));
+        assertThat(SqlStatement.parse("update member set age=?,team_id=?,username=? where member_id=?").kind())
+                .isEqualTo(ENTITY_WRITE);
+        assertThat(SqlStatement.parse("/* delete study.querydsl.entity.Member */ delete from PUBLIC.MEMBER where member_id=?"))
+                .extracting(SqlStatement::kind, SqlStatement::table)
+                .containsExactly(ENTITY_WRITE, "member");
+        assertThat(SqlStatement.parse("merge into team t using (values (?,?)) s on (t.team_id=s.team_id)").kind())
+                .isEqualTo(ENTITY_WRITE);
+    }
+
+    @Test
+    void bulkWrites() {
+        assertThat(SqlStatement.parse("update member m1_0 set age=(m1_0.age+cast(? as integer)) where m1_0.username like ? escape '!'"))
+                .extracting(SqlStatement::kind, SqlStatement::table)
+                .containsExactly(BULK_WRITE, "member");
+        assertThat(SqlStatement.parse("delete from member m1_0 where m1_0.age>?").kind()).isEqualTo(BULK_WRITE);
+        assertThat(SqlStatement.parse("insert into team (name,team_id) select ?, ? from member").kind()).isEqualTo(BULK_WRITE);
+        assertThat(SqlStatement.parse("update member set age=? where age>?").isWrite()).isTrue();
+    }
+
+    @Test
+    void others() {
+        assertThat(SqlStatement.parse("EXPLAIN select * from member").kind()).isEqualTo(EXPLAIN);
+        assertThat(SqlStatement.parse("create table member (member_id bigint)").kind()).isEqualTo(OTHER);
+        assertThat(SqlStatement.parse("selection").kind()).isEqualTo(OTHER);
+    }
+}
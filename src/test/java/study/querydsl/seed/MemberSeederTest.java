@@ -0,0 +1,72 @@
+package study.querydsl.seed;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 기동 시 적재한 데이터는 커밋되므로 테스트 트랜잭션 없이 확인하고 지운다.
+ */
+@SpringBootTest(properties = {
+        "seed.enabled=true",
+        "seed.members=10",
+        "seed.teams=3",
+        "seed.min-age=20",
+        "seed.max-age=30",
+        "seed.age-distribution=normal",
+        "seed.batch-size=4",
+        "seed.commit-size=6",
+        "seed.partitions=2"
+})
+class MemberSeederTest {
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            queryFactory.delete(member).where(member.username.startsWith("member")).execute();
+            queryFactory.delete(team).where(team.name.in("team0", "team1", "team2")).execute();
+        });
+    }
+
+    @Test
+    void seedsConfiguredRowsOnStartup() {
+        JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+
+        List<Tuple> perTeam = queryFactory
+                .select(team.name, member.count(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .where(member.username.startsWith("member"))
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+
+        // 10명을 팀 3개에 순서대로 나눈다.
+        assertThat(perTeam).extracting(t -> t.get(team.name)).containsExactly("team0", "team1", "team2");
+        assertThat(perTeam).extracting(t -> t.get(member.count())).containsExactly(4L, 3L, 3L);
+        assertThat(perTeam).allSatisfy(t -> {
+            assertThat(t.get(member.age.min())).isGreaterThanOrEqualTo(20);
+            assertThat(t.get(member.age.max())).isLessThanOrEqualTo(30);
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.seed;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeedPropertiesTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withUserConfiguration(SeedPropertiesConfig.class);
+
+    @Test
+    void defaultsAreValid() {
+        runner.run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    void rejectsInvalidProperties() {
+        // 0 이면 MemberSeeder 의 % 연산에서 0 으로 나누게 된다.
+        runner.withPropertyValues("seed.batch-size=0").run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("seed.commit-size=0").run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("seed.partitions=0").run(context -> assertThat(context).hasFailed());
+        runner.withPropertyValues("seed.min-age=50", "seed.max-age=10").run(context -> assertThat(context).hasFailed());
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(SeedProperties.class)
+    static class SeedPropertiesConfig {
+    }
+}